@@ -0,0 +1,58 @@
+package sql.builder.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sql.builder.BoundSql;
+import sql.builder.Sql;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static sql.builder.SqlHelper.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeepTreeBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int depth;
+
+    private Sql sql;
+
+    @Setup
+    public void setUp() {
+        Sql condition = sql("c0").equal(param("v0", 0));
+        for (int i = 1; i < depth; i++) {
+            condition = new Sql().append(condition).and(sql("c" + i).equal(param("v" + i, i)));
+        }
+        sql = new Sql().select("*").from("t").where(condition);
+    }
+
+    @Benchmark
+    public String render() {
+        return sql.toString();
+    }
+
+    @Benchmark
+    public BoundSql renderWithParameters() {
+        return sql.build();
+    }
+
+    @Benchmark
+    public Map<String, Object> parameters() {
+        return sql.getParameters();
+    }
+}
@@ -0,0 +1,66 @@
+package sql.builder.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sql.builder.BoundSql;
+import sql.builder.Sql;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SqlBenchmark {
+
+    @Param({"smallLookup", "report", "inList", "deepAnd", "nestedCte"})
+    public String workload;
+
+    private Sql sql;
+    private ByteBuffer buffer;
+
+    @Setup
+    public void setUp() {
+        sql = Workloads.build(workload);
+        buffer = ByteBuffer.allocateDirect(1 << 20);
+    }
+
+    @Benchmark
+    public Sql build() {
+        return Workloads.build(workload);
+    }
+
+    @Benchmark
+    public String render() {
+        return sql.toString();
+    }
+
+    @Benchmark
+    public int renderToByteBuffer() {
+        buffer.clear();
+        return sql.renderTo(buffer);
+    }
+
+    @Benchmark
+    public BoundSql renderWithParameters() {
+        return sql.build();
+    }
+
+    @Benchmark
+    public Map<String, Object> parameters() {
+        return sql.getParameters();
+    }
+}
@@ -0,0 +1,96 @@
+package sql.builder.benchmark;
+
+import sql.builder.Sql;
+
+import static sql.builder.SqlHelper.*;
+
+final class Workloads {
+    static final int REPORT_JOINS = 20;
+    static final int IN_LIST_SIZE = 5_000;
+    static final int AND_CHAIN_DEPTH = 1_000;
+    static final int CTE_DEPTH = 10;
+
+    private Workloads() {
+    }
+
+    static Sql build(String workload) {
+        switch (workload) {
+            case "smallLookup":
+                return smallLookup();
+            case "report":
+                return report();
+            case "inList":
+                return inList();
+            case "deepAnd":
+                return deepAnd();
+            case "nestedCte":
+                return nestedCte();
+            default:
+                throw new IllegalArgumentException("Unknown workload: " + workload);
+        }
+    }
+
+    static Sql smallLookup() {
+        return new Sql()
+                .select("id", "name", "email")
+                .from("users")
+                .where(sql("tenant_id").equal(param("tenant_id", 42L)))
+                .and(sql("id").equal(param("id", 1_000L)));
+    }
+
+    static Sql report() {
+        Sql sql = new Sql()
+                .select(sql("t0.id"), sum("t1.amount"), count("t2.id"), max("t3.created_at"))
+                .from("t0");
+        for (int i = 1; i <= REPORT_JOINS; i++) {
+            String table = "t" + i;
+            sql.leftJoin(table).on(sql(table + ".parent_id").equal("t" + (i - 1) + ".id"));
+        }
+        return sql
+                .where(sql("t0.tenant_id").equal(param("tenant_id", 42L)))
+                .and(sql("t0.created_at").greaterOrEqual(param("from", "2020-01-01")))
+                .groupBy("t0.id")
+                .having(sum("t1.amount").greaterThan("0"))
+                .orderBy(desc("t0.id"))
+                .offset(100)
+                .limit(50);
+    }
+
+    static Sql inList() {
+        Sql[] values = new Sql[IN_LIST_SIZE];
+        for (int i = 0; i < IN_LIST_SIZE; i++) {
+            values[i] = param("id_" + i, i);
+        }
+        return new Sql()
+                .select("id", "name")
+                .from("users")
+                .where("id")
+                .in(commaSeparated(values));
+    }
+
+    static Sql deepAnd() {
+        Sql condition = sql("c0").equal(param("v0", 0));
+        for (int i = 1; i < AND_CHAIN_DEPTH; i++) {
+            condition = new Sql()
+                    .append(condition)
+                    .and(sql("c" + i).equal(param("v" + i, i)));
+        }
+        return new Sql()
+                .select("*")
+                .from("t")
+                .where(condition);
+    }
+
+    static Sql nestedCte() {
+        Sql sql = new Sql().withAs("cte0", new Sql().select("id", "parent_id").from("t").where(sql("tenant_id").equal(param("tenant_id", 42L))));
+        for (int i = 1; i < CTE_DEPTH; i++) {
+            sql.commaNewLine()
+                    .append("cte" + i)
+                    .as(brackets(new Sql()
+                            .select("c.id", "c.parent_id")
+                            .from("cte" + (i - 1) + " c")
+                            .join("t p").on("p.id = c.parent_id")));
+        }
+        return sql.select("*").from("cte" + (CTE_DEPTH - 1));
+    }
+}
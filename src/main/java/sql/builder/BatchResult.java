@@ -0,0 +1,50 @@
+package sql.builder;
+
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+public final class BatchResult {
+    private final int[] updateCounts;
+    private final int rowCount;
+    private final int batchCount;
+    private final long elapsedNanos;
+
+    BatchResult(int[] updateCounts, int rowCount, int batchCount, long elapsedNanos) {
+        this.updateCounts = updateCounts;
+        this.rowCount = rowCount;
+        this.batchCount = batchCount;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int[] getUpdateCounts() {
+        return updateCounts.clone();
+    }
+
+    public long getTotalUpdateCount() {
+        long total = 0;
+        for (int updateCount : updateCounts) {
+            if (updateCount != Statement.SUCCESS_NO_INFO) {
+                total += updateCount;
+            }
+        }
+        return total;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getBatchCount() {
+        return batchCount;
+    }
+
+    public long getElapsed(TimeUnit unit) {
+        return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult{rows=" + rowCount + ", batches=" + batchCount
+                + ", updated=" + getTotalUpdateCount() + ", elapsedNanos=" + elapsedNanos + "}";
+    }
+}
@@ -0,0 +1,52 @@
+package sql.builder;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class BoundSql {
+    private final String sql;
+    private final String[] parameterNames;
+    private final Object[] parameterValues;
+
+    BoundSql(String sql, String[] parameterNames, Object[] parameterValues) {
+        this.sql = sql;
+        this.parameterNames = parameterNames;
+        this.parameterValues = parameterValues;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public List<String> getParameterNames() {
+        return Collections.unmodifiableList(Arrays.asList(parameterNames));
+    }
+
+    public List<Object> getParameterValues() {
+        return Collections.unmodifiableList(Arrays.asList(parameterValues));
+    }
+
+    public Map<String, Object> getParameters() {
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        for (int i = 0; i < parameterNames.length; i++) {
+            parameters.put(parameterNames[i], parameterValues[i]);
+        }
+        return parameters;
+    }
+
+    String[] parameterNames() {
+        return parameterNames;
+    }
+
+    Object[] parameterValues() {
+        return parameterValues;
+    }
+
+    @Override
+    public String toString() {
+        return sql;
+    }
+}
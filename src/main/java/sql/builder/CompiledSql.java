@@ -0,0 +1,131 @@
+package sql.builder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class CompiledSql {
+    private final String sql;
+    private final String[] parameterNames;
+    private final Object[] parameterValues;
+    private final int[] parameterPositions;
+    private final String[] distinctNames;
+    private final int[] distinctIndexes;
+    private final boolean positional;
+
+    CompiledSql(String sql, String[] parameterNames, Object[] parameterValues, int[] parameterPositions,
+                boolean positional) {
+        this.sql = sql;
+        this.positional = positional;
+        this.parameterNames = parameterNames;
+        this.parameterValues = parameterValues;
+        this.parameterPositions = parameterPositions;
+
+        Map<String, Integer> distinct = new LinkedHashMap<>();
+        distinctIndexes = new int[parameterNames.length];
+        for (int i = 0; i < parameterNames.length; i++) {
+            Integer index = distinct.get(parameterNames[i]);
+            if (null == index) {
+                index = distinct.size();
+                distinct.put(parameterNames[i], index);
+            }
+            distinctIndexes[i] = index;
+        }
+        distinctNames = distinct.keySet().toArray(new String[0]);
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public List<String> getParameterNames() {
+        return Collections.unmodifiableList(Arrays.asList(distinctNames));
+    }
+
+    public int getPlaceholderCount() {
+        return parameterPositions.length;
+    }
+
+    public String getPlaceholderName(int index) {
+        return parameterNames[index];
+    }
+
+    public int getPlaceholderPosition(int index) {
+        return parameterPositions[index];
+    }
+
+    public boolean isPositional() {
+        return positional;
+    }
+
+    public CompiledSql positional() {
+        if (positional) {
+            return this;
+        }
+        StringBuilder positionalSql = new StringBuilder(sql.length());
+        int[] positionalPositions = new int[parameterPositions.length];
+        int copied = 0;
+        for (int i = 0; i < parameterPositions.length; i++) {
+            positionalSql.append(sql, copied, parameterPositions[i]);
+            positionalPositions[i] = positionalSql.length();
+            positionalSql.append(SqlRenderer.POSITIONAL_PLACEHOLDER);
+            copied = parameterPositions[i] + 1 + parameterNames[i].length();
+        }
+        positionalSql.append(sql, copied, sql.length());
+        return new CompiledSql(positionalSql.toString(), parameterNames, parameterValues, positionalPositions,
+                true);
+    }
+
+    public BoundSql bind() {
+        return new BoundSql(sql, parameterNames, parameterValues);
+    }
+
+    public BoundSql bind(Map<String, ?> values) {
+        Object[] bound = parameterValues.clone();
+        for (int i = 0; i < parameterNames.length; i++) {
+            if (values.containsKey(parameterNames[i])) {
+                bound[i] = values.get(parameterNames[i]);
+            }
+        }
+        return new BoundSql(sql, parameterNames, bound);
+    }
+
+    public BoundSql bind(Object... values) {
+        checkArity(values);
+        Object[] bound = new Object[parameterNames.length];
+        for (int i = 0; i < bound.length; i++) {
+            bound[i] = values[distinctIndexes[i]];
+        }
+        return new BoundSql(sql, parameterNames, bound);
+    }
+
+    void bindTo(PreparedStatement statement, Map<String, ?> values) throws SQLException {
+        for (int i = 0; i < parameterNames.length; i++) {
+            Object value = values.containsKey(parameterNames[i]) ? values.get(parameterNames[i]) : parameterValues[i];
+            PreparedStatementBinder.bind(statement, i + 1, value);
+        }
+    }
+
+    void bindTo(PreparedStatement statement, Object[] values) throws SQLException {
+        checkArity(values);
+        for (int i = 0; i < parameterNames.length; i++) {
+            PreparedStatementBinder.bind(statement, i + 1, values[distinctIndexes[i]]);
+        }
+    }
+
+    private void checkArity(Object[] values) {
+        if (values.length != distinctNames.length) {
+            throw new IllegalArgumentException("Expected " + distinctNames.length
+                    + " parameter values " + Arrays.toString(distinctNames) + " but got " + values.length);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return sql;
+    }
+}
@@ -0,0 +1,64 @@
+package sql.builder;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+final class FrozenSql extends Sql {
+
+    private FrozenSql(String content, SqlConfig config, Sql[] children) {
+        super(content, config, children);
+    }
+
+    static Sql freeze(Sql sql) {
+        if (sql.isFrozen()) {
+            return sql;
+        }
+        Map<Sql, Sql> frozen = new IdentityHashMap<>();
+        Deque<Sql> pending = new ArrayDeque<>();
+        pending.push(sql);
+        while (!pending.isEmpty()) {
+            Sql node = pending.peek();
+            boolean ready = true;
+            for (int i = node.childCount() - 1; i >= 0; i--) {
+                Sql child = node.child(i);
+                if (!child.isFrozen() && !frozen.containsKey(child)) {
+                    pending.push(child);
+                    ready = false;
+                }
+            }
+            if (ready) {
+                pending.pop();
+                if (!frozen.containsKey(node)) {
+                    frozen.put(node, copy(node, frozen));
+                }
+            }
+        }
+        return frozen.get(sql);
+    }
+
+    private static Sql copy(Sql node, Map<Sql, Sql> frozen) {
+        int offset = node instanceof SqlTokens ? 1 : 0;
+        Sql[] children = new Sql[offset + node.childCount()];
+        if (offset > 0) {
+            SqlTokens tokens = (SqlTokens) node;
+            children[0] = new SqlTokens(tokens.separator(), tokens.tokens());
+        }
+        for (int i = 0; i < node.childCount(); i++) {
+            Sql child = node.child(i);
+            children[offset + i] = child.isFrozen() ? child : frozen.get(child);
+        }
+        return new FrozenSql(offset > 0 ? null : node.getContent(), node.getConfig(), children);
+    }
+
+    @Override
+    public Sql append(Sql sql) {
+        throw new UnsupportedOperationException("Immutable sql: " + this);
+    }
+
+    @Override
+    boolean isFrozen() {
+        return true;
+    }
+}
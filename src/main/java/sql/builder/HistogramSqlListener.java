@@ -0,0 +1,123 @@
+package sql.builder;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class HistogramSqlListener implements SqlListener {
+    private final ConcurrentMap<Long, Histogram> histograms = new ConcurrentHashMap<>();
+
+    @Override
+    public void rendered(Sql sql, int nodeCount, long length, int parameterCount, long durationNanos) {
+        Long fingerprint = sql.fingerprint();
+        Histogram histogram = histograms.get(fingerprint);
+        if (null == histogram) {
+            histogram = histograms.computeIfAbsent(fingerprint, Histogram::new);
+        }
+        histogram.record(durationNanos, length);
+    }
+
+    public Histogram getHistogram(long fingerprint) {
+        return histograms.get(fingerprint);
+    }
+
+    public List<Histogram> getHistograms() {
+        List<Histogram> result = new ArrayList<>(histograms.values());
+        result.sort(Comparator.comparingLong(Histogram::getTotalNanos).reversed());
+        return result;
+    }
+
+    public void reset() {
+        histograms.clear();
+    }
+
+    public static final class Histogram {
+        private static final int BUCKETS = 64;
+        private final long fingerprint;
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder totalLength = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        Histogram(long fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        void record(long nanos, long length) {
+            buckets.incrementAndGet(bucket(nanos));
+            count.increment();
+            totalNanos.add(nanos);
+            totalLength.add(length);
+            long max = maxNanos.get();
+            while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+                max = maxNanos.get();
+            }
+        }
+
+        private static int bucket(long nanos) {
+            return BUCKETS - 1 - Long.numberOfLeadingZeros(Math.max(nanos, 1));
+        }
+
+        public long getFingerprint() {
+            return fingerprint;
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        public long getMeanNanos() {
+            long count = getCount();
+            return count == 0 ? 0 : getTotalNanos() / count;
+        }
+
+        public long getMeanLength() {
+            long count = getCount();
+            return count == 0 ? 0 : totalLength.sum() / count;
+        }
+
+        public long getPercentileNanos(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("percentile must be between 0 and 100: " + percentile);
+            }
+            long[] counts = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets.get(i);
+                total += counts[i];
+            }
+            long rank = (long) Math.ceil(total * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank && seen > 0) {
+                    return Math.min(i == BUCKETS - 1 ? Long.MAX_VALUE : (2L << i) - 1, getMaxNanos());
+                }
+            }
+            return 0;
+        }
+
+        @Override
+        public String toString() {
+            return "Histogram{fingerprint=" + Long.toHexString(fingerprint)
+                    + ", count=" + getCount()
+                    + ", meanNanos=" + getMeanNanos()
+                    + ", p99Nanos=" + getPercentileNanos(99)
+                    + ", maxNanos=" + getMaxNanos() + "}";
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package sql.builder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static sql.builder.SqlHelper.*;
+
+public final class InsertSql {
+    public static final int DEFAULT_MAX_PARAMETERS = 32767;
+    public static final int DEFAULT_MAX_STATEMENT_LENGTH = 1 << 20;
+    private final String table;
+    private final String[] columns;
+    private final String[] paramPrefixes;
+    private final List<Object[]> rows = new ArrayList<>();
+    private int maxParameters = DEFAULT_MAX_PARAMETERS;
+    private int maxStatementLength = DEFAULT_MAX_STATEMENT_LENGTH;
+
+    InsertSql(String table, String... columns) {
+        if (columns.length == 0) {
+            throw new IllegalArgumentException("No columns to insert into " + table);
+        }
+        this.table = table;
+        this.columns = columns.clone();
+        this.paramPrefixes = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            paramPrefixes[i] = columns[i].replaceAll("\\W", "_") + "_";
+        }
+    }
+
+    public InsertSql values(Object... row) {
+        if (row.length != columns.length) {
+            throw new IllegalArgumentException("Expected " + columns.length + " values "
+                    + Arrays.toString(columns) + " but got " + row.length);
+        }
+        rows.add(row.clone());
+        return this;
+    }
+
+    public InsertSql values(Iterable<Object[]> rows) {
+        for (Object[] row : rows) {
+            values(row);
+        }
+        return this;
+    }
+
+    public InsertSql maxParameters(int maxParameters) {
+        if (maxParameters < columns.length) {
+            throw new IllegalArgumentException("maxParameters " + maxParameters
+                    + " is less than the column count " + columns.length);
+        }
+        this.maxParameters = maxParameters;
+        return this;
+    }
+
+    public InsertSql maxStatementLength(int maxStatementLength) {
+        if (maxStatementLength < 1) {
+            throw new IllegalArgumentException("maxStatementLength must be positive: " + maxStatementLength);
+        }
+        this.maxStatementLength = maxStatementLength;
+        return this;
+    }
+
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    public List<Sql> toStatements() {
+        List<Sql> statements = new ArrayList<>();
+        Sql header = header();
+        int headerLength = headerLength();
+        int maxRows = maxParameters / columns.length;
+        int from = 0;
+        while (from < rows.size()) {
+            int count = 0;
+            int length = headerLength;
+            while (from + count < rows.size() && count < maxRows) {
+                int rowLength = rowLength(count) + (count > 0 ? COMMA_NEW_LINE.getContent().length() : 0);
+                if (count > 0 && length + rowLength > maxStatementLength) {
+                    break;
+                }
+                length += rowLength;
+                count++;
+            }
+            statements.add(statement(header, from, count));
+            from += count;
+        }
+        return statements;
+    }
+
+    private Sql header() {
+        return new Sql(5)
+                .append(INSERT_INTO)
+                .append(table)
+                .append(SPACE)
+                .append(brackets(commaSeparated(columns)))
+                .append(VALUES);
+    }
+
+    private int headerLength() {
+        int length = INSERT_INTO.getContent().length() + table.length() + 3 + VALUES.getContent().length();
+        for (int i = 0; i < columns.length; i++) {
+            length += columns[i].length() + (i > 0 ? COMMA.getContent().length() : 0);
+        }
+        return length;
+    }
+
+    private int rowLength(int index) {
+        int digits = Integer.toString(index).length();
+        int length = 2 + COMMA.getContent().length() * (columns.length - 1);
+        for (String prefix : paramPrefixes) {
+            length += 1 + prefix.length() + digits;
+        }
+        return length;
+    }
+
+    private Sql statement(Sql header, int from, int count) {
+        Sql values = new Sql(2 * count - 1);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                values.append(COMMA_NEW_LINE);
+            }
+            Object[] row = rows.get(from + i);
+            Sql tuple = new Sql(2 * columns.length - 1);
+            for (int column = 0; column < columns.length; column++) {
+                if (column > 0) {
+                    tuple.comma();
+                }
+                tuple.param(paramPrefixes[column] + i, row[column]);
+            }
+            values.append(brackets(tuple));
+        }
+        return new Sql(2).append(header).append(values);
+    }
+}
@@ -0,0 +1,63 @@
+package sql.builder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+public final class JfrSqlListener implements SqlListener {
+    private final ThreadLocal<RenderEvent> started = new ThreadLocal<>();
+
+    @Override
+    public void renderStarted(Sql sql) {
+        RenderEvent event = new RenderEvent();
+        if (event.isEnabled()) {
+            event.begin();
+            started.set(event);
+        }
+    }
+
+    @Override
+    public void rendered(Sql sql, int nodeCount, long length, int parameterCount, long durationNanos) {
+        RenderEvent event = started.get();
+        if (null == event) {
+            return;
+        }
+        started.remove();
+        event.end();
+        if (event.shouldCommit()) {
+            event.fingerprint = sql.fingerprint();
+            event.nodeCount = nodeCount;
+            event.length = length;
+            event.parameterCount = parameterCount;
+            event.renderTime = durationNanos;
+            event.commit();
+        }
+    }
+
+    @Name("sql.builder.Render")
+    @Label("SQL Render")
+    @Category("SQL Builder")
+    @Description("Rendering of a Sql tree to text")
+    @StackTrace(false)
+    static final class RenderEvent extends Event {
+        @Label("Fingerprint")
+        long fingerprint;
+
+        @Label("Node Count")
+        int nodeCount;
+
+        @Label("Length")
+        long length;
+
+        @Label("Parameter Count")
+        int parameterCount;
+
+        @Label("Render Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long renderTime;
+    }
+}
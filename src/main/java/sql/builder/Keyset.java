@@ -0,0 +1,113 @@
+package sql.builder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static sql.builder.SqlHelper.*;
+
+public final class Keyset {
+    private final List<String> columns;
+    private final List<Boolean> descending;
+    private final Object[] lastValues;
+
+    public Keyset() {
+        this(Collections.<String>emptyList(), Collections.<Boolean>emptyList(), null);
+    }
+
+    private Keyset(List<String> columns, List<Boolean> descending, Object[] lastValues) {
+        this.columns = columns;
+        this.descending = descending;
+        this.lastValues = lastValues;
+    }
+
+    public Keyset asc(String column) {
+        return column(column, false);
+    }
+
+    public Keyset desc(String column) {
+        return column(column, true);
+    }
+
+    private Keyset column(String column, boolean desc) {
+        if (!isFirstPage()) {
+            throw new IllegalStateException("Cannot add keyset column " + column + " after key values were set");
+        }
+        List<String> columns = new ArrayList<>(this.columns);
+        List<Boolean> descending = new ArrayList<>(this.descending);
+        columns.add(column);
+        descending.add(desc);
+        return new Keyset(Collections.unmodifiableList(columns), Collections.unmodifiableList(descending), null);
+    }
+
+    public Keyset after(Object... lastValues) {
+        if (lastValues.length != columns.size()) {
+            throw new IllegalArgumentException("Expected " + columns.size() + " key values "
+                    + columns + " but got " + lastValues.length);
+        }
+        for (int i = 0; i < lastValues.length; i++) {
+            if (null == lastValues[i]) {
+                throw new IllegalArgumentException("Null key value for " + columns.get(i));
+            }
+        }
+        return new Keyset(columns, descending, lastValues.clone());
+    }
+
+    public boolean isFirstPage() {
+        return null == lastValues;
+    }
+
+    public Sql orderBy() {
+        checkColumns();
+        Sql[] order = new Sql[columns.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = descending.get(i) ? SqlHelper.desc(columns.get(i)) : SqlHelper.asc(columns.get(i));
+        }
+        return commaSeparated(order);
+    }
+
+    public Sql predicate() {
+        checkColumns();
+        if (isFirstPage()) {
+            throw new IllegalStateException("No key values to seek after, call after(...) first");
+        }
+        Sql[] parameters = new Sql[columns.size()];
+        for (int i = 0; i < parameters.length; i++) {
+            parameters[i] = param("last_" + columns.get(i).replaceAll("\\W", "_"), lastValues[i]);
+        }
+        return isUniform() ? rowValuePredicate(parameters) : expandedPredicate(parameters);
+    }
+
+    private void checkColumns() {
+        if (columns.isEmpty()) {
+            throw new IllegalStateException("No keyset columns, call asc(...) or desc(...) first");
+        }
+    }
+
+    private boolean isUniform() {
+        return !descending.contains(!descending.get(0));
+    }
+
+    private Sql rowValuePredicate(Sql[] parameters) {
+        Sql comparison = descending.get(0) ? LESS : GREATER;
+        if (parameters.length == 1) {
+            return new Sql(columns.get(0)).append(comparison).append(parameters[0]);
+        }
+        return brackets(commaSeparated(columns.toArray(new String[0])))
+                .append(comparison)
+                .append(brackets(commaSeparated(parameters)));
+    }
+
+    private Sql expandedPredicate(Sql[] parameters) {
+        Sql[] terms = new Sql[parameters.length];
+        for (int i = 0; i < terms.length; i++) {
+            Sql term = new Sql(4 * i + 3);
+            for (int j = 0; j < i; j++) {
+                term.append(columns.get(j)).append(EQUAL).append(parameters[j]).append(AND);
+            }
+            term.append(columns.get(i)).append(descending.get(i) ? LESS : GREATER).append(parameters[i]);
+            terms[i] = i == 0 ? term : brackets(term);
+        }
+        return brackets(concatenate(OR, terms));
+    }
+}
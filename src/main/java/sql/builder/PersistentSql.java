@@ -0,0 +1,28 @@
+package sql.builder;
+
+final class PersistentSql extends Sql {
+
+    PersistentSql(SqlConfig config, Sql... children) {
+        super(config, children);
+    }
+
+    @Override
+    public Sql append(Sql sql) {
+        return new PersistentSql(getConfig(), this, FrozenSql.freeze(sql));
+    }
+
+    @Override
+    public Sql toPersistent() {
+        return this;
+    }
+
+    @Override
+    boolean isClauseContainer() {
+        return true;
+    }
+
+    @Override
+    boolean isFrozen() {
+        return true;
+    }
+}
@@ -0,0 +1,9 @@
+package sql.builder;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+@FunctionalInterface
+public interface ResultSetHandler<T> {
+    T handle(ResultSet resultSet) throws SQLException;
+}
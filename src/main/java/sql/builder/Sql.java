@@ -1,31 +1,82 @@
 package sql.builder;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 import static sql.builder.SqlHelper.*;
 
 public class Sql {
-    public static String offsetParameterName = "p_offset";
-    public static String limitParameterName = "p_limit";
+    public static final int DEFAULT_IN_LIST_MAX_SIZE = 1000;
+    @Deprecated
+    public static final String offsetParameterName = "p_offset";
+    @Deprecated
+    public static final String limitParameterName = "p_limit";
+    private static final int RENDER_CAPACITY_RESERVE = 16;
+    private static final Sql[] NO_CHILDREN = new Sql[0];
+    private static final int MIN_CHILDREN_CAPACITY = 4;
+    private static final int CACHE_MIN_USES = 2;
+    private static final Sql IN_VALUE = immutableSql("v");
+    private static final Sql IN_VALUES = immutableSql("in_values(v)");
     private final String content;
-    private final List<Sql> children;
-    private Map<String, Object> parameters;
+    private final SqlConfig config;
+    private Sql[] children;
+    private int size;
+    private int lengthHint;
+    private int uses;
+    private volatile SqlCache cache;
 
     public Sql() {
-        this(null, new LinkedList<>());
+        this(null);
     }
 
     public Sql(String content) {
-        this(content, new LinkedList<>());
+        this(content, NO_CHILDREN);
     }
 
-    Sql(String content, List<Sql> children) {
+    public Sql(String content, SqlConfig config) {
+        this(content, NO_CHILDREN, Objects.requireNonNull(config, "config"));
+    }
+
+    Sql(int capacity) {
+        this(null, new Sql[capacity], SqlConfig.DEFAULT);
+    }
+
+    Sql(String content, Sql[] children) {
+        this(content, children, SqlConfig.DEFAULT);
+    }
+
+    Sql(SqlConfig config, Sql... children) {
+        this(null, config, children);
+    }
+
+    Sql(String content, SqlConfig config, Sql[] children) {
+        this(content, children, config);
+        size = children.length;
+        for (Sql child : children) {
+            if (!child.isLeaf() && child.uses < CACHE_MIN_USES) {
+                child.uses++;
+            }
+        }
+    }
+
+    private Sql(String content, Sql[] children, SqlConfig config) {
         this.content = content;
         this.children = children;
+        this.config = config;
     }
 
     public Sql select() {
@@ -57,10 +108,35 @@ public class Sql {
     }
 
     public Sql param(String paramName, Object paramValue) {
-        append(COLON).append(paramName);
-        initParameters();
-        parameters.put(paramName, paramValue);
-        return this;
+        return append(new SqlParameter(paramName, paramValue));
+    }
+
+    public Sql param(String paramName, int paramValue) {
+        return append(new SqlParameter.OfInt(paramName, paramValue));
+    }
+
+    public Sql param(String paramName, long paramValue) {
+        return append(new SqlParameter.OfLong(paramName, paramValue));
+    }
+
+    public Sql param(String paramName, double paramValue) {
+        return append(new SqlParameter.OfDouble(paramName, paramValue));
+    }
+
+    public Sql param(String paramName, byte paramValue) {
+        return param(paramName, (Object) paramValue);
+    }
+
+    public Sql param(String paramName, short paramValue) {
+        return param(paramName, (Object) paramValue);
+    }
+
+    public Sql param(String paramName, char paramValue) {
+        return param(paramName, (Object) paramValue);
+    }
+
+    public Sql param(String paramName, float paramValue) {
+        return param(paramName, (Object) paramValue);
     }
 
     public Sql as() {
@@ -83,6 +159,101 @@ public class Sql {
         return append(IN).append(brackets(sql));
     }
 
+    public Sql in(String column, Collection<?> values) {
+        return in(column, values, column.replaceAll("\\W", "_"));
+    }
+
+    public Sql in(String column, Collection<?> values, String paramPrefix) {
+        if (null == paramPrefix || !paramPrefix.matches("\\w+")) {
+            throw new IllegalArgumentException("Invalid parameter prefix: " + paramPrefix);
+        }
+        if (values.size() <= config.getInStrategyThreshold()) {
+            return inList(column, values, paramPrefix + "_", config.getInListMaxSize());
+        }
+        switch (config.getInStrategy()) {
+            case ARRAY:
+                return inArray(column, values, paramPrefix + "_array");
+            case VALUES:
+                return inValues(column, values, paramPrefix + "_");
+            default:
+                return inList(column, values, paramPrefix + "_", config.getInListMaxSize());
+        }
+    }
+
+    public Sql in(String column, Collection<?> values, int maxListSize) {
+        return inList(column, values, column.replaceAll("\\W", "_") + "_", maxListSize);
+    }
+
+    private Sql inList(String column, Collection<?> values, String paramPrefix, int maxListSize) {
+        if (maxListSize < 1) {
+            throw new IllegalArgumentException("maxListSize must be positive: " + maxListSize);
+        }
+        if (values.isEmpty()) {
+            return append(column).in(NULL);
+        }
+        Object[] array = values.toArray();
+        int groups = (array.length + maxListSize - 1) / maxListSize;
+        Sql[] inGroups = new Sql[groups];
+        for (int group = 0; group < groups; group++) {
+            int from = group * maxListSize;
+            int size = Math.min(bucketSize(array.length - from), maxListSize);
+            Sql list = new Sql(2 * size - 1);
+            for (int i = 0; i < size; i++) {
+                if (i > 0) {
+                    list.comma();
+                }
+                int index = Math.min(from + i, array.length - 1);
+                list.param(paramPrefix + (from + i), array[index]);
+            }
+            inGroups[group] = new Sql(column).in(list);
+        }
+        return append(groups == 1 ? inGroups[0] : brackets(concatenate(OR, inGroups)));
+    }
+
+    private Sql inArray(String column, Collection<?> values, String paramName) {
+        Object array = toTypedArray(values.toArray());
+        return append(column).append(EQUAL).append(ANY).append(brackets(new SqlParameter(paramName, array)));
+    }
+
+    private static Object toTypedArray(Object[] values) {
+        Class<?> type = null;
+        for (Object value : values) {
+            if (null == value) {
+                continue;
+            }
+            if (null == type) {
+                type = value.getClass();
+            } else if (type != value.getClass()) {
+                return values;
+            }
+        }
+        if (null == type) {
+            return values;
+        }
+        Object[] array = (Object[]) Array.newInstance(type, values.length);
+        System.arraycopy(values, 0, array, 0, values.length);
+        return array;
+    }
+
+    private Sql inValues(String column, Collection<?> values, String paramPrefix) {
+        Object[] array = values.toArray();
+        int size = bucketSize(array.length);
+        Sql rows = new Sql(2 * size - 1);
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                rows.comma();
+            }
+            rows.append(brackets(new SqlParameter(paramPrefix + i, array[Math.min(i, array.length - 1)])));
+        }
+        Sql derivedTable = new Sql(3).append(brackets(new Sql(2).append(VALUES).append(rows)))
+                .append(AS).append(IN_VALUES);
+        return append(column).in(new Sql(4).append(SELECT).append(IN_VALUE).append(FROM).append(derivedTable));
+    }
+
+    private static int bucketSize(int size) {
+        return size <= 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+    }
+
     public Sql groupBy(String ... sql) {
         return groupBy(commaSeparated(sql));
     }
@@ -100,13 +271,29 @@ public class Sql {
     }
 
     public Sql append(Sql sql) {
-        children.add(sql);
+        if (null == children) {
+            throw new UnsupportedOperationException("Immutable sql: " + content);
+        }
+        if (size == children.length) {
+            children = Arrays.copyOf(children, Math.max(MIN_CHILDREN_CAPACITY, size << 1));
+        }
+        children[size++] = sql;
+        if (!sql.isLeaf() && sql.uses < CACHE_MIN_USES) {
+            sql.uses++;
+        }
+        if (null != cache) {
+            SqlFingerprint fingerprint = cache.fingerprint;
+            if (null != fingerprint) {
+                cache.fingerprint = fingerprint.append(SqlFingerprint.compute(sql));
+                sql.linkParent(this);
+            }
+            invalidate();
+        }
         return this;
     }
 
     public Sql append(String sql) {
-        append(immutableSql(sql));
-        return this;
+        return append(immutableSql(sql));
     }
 
     public Sql from(String table) {
@@ -118,27 +305,21 @@ public class Sql {
     }
 
     public Sql where(String... conditions) {
-        if (conditions.length > 0) {
-            append(WHERE);
-            append(concatenate(AND, conditions));
-        }
-        return this;
+        return conditions.length > 0 ? append(WHERE).append(concatenate(AND, conditions)) : this;
     }
 
     public Sql where(Sql... conditions) {
-        if (conditions.length > 0) {
-            append(WHERE);
-            append(concatenate(AND, conditions));
-        }
-        return this;
+        return conditions.length > 0 ? append(WHERE).append(concatenate(AND, conditions)) : this;
+    }
+
+    public Sql where(Keyset keyset) {
+        return keyset.isFirstPage() ? this : append(WHERE).append(keyset.predicate());
     }
 
     public Sql where(Collection<Sql> conditions) {
-        if (null != conditions && conditions.size() > 0) {
-            append(WHERE);
-            append(concatenate(AND, conditions.toArray(new Sql[0])));
-        }
-        return this;
+        return null != conditions && conditions.size() > 0
+                ? append(WHERE).append(concatenate(AND, conditions.toArray(new Sql[0])))
+                : this;
     }
 
     public Sql and() {
@@ -153,6 +334,10 @@ public class Sql {
         return and().append(sql);
     }
 
+    public Sql and(Keyset keyset) {
+        return keyset.isFirstPage() ? this : and(keyset.predicate());
+    }
+
     public Sql or() {
         return append(OR);
     }
@@ -344,19 +529,27 @@ public class Sql {
     }
 
     public Sql offset(int offset) {
-        return offset(new Sql().param(offsetParameterName, offset));
+        return append(OFFSET).param(config.getOffsetParameterName(), offset);
     }
     public Sql offset(Sql sql) {
         return append(OFFSET).append(sql);
     }
 
     public Sql limit(int limit) {
-        return limit(new Sql().param(limitParameterName, limit));
+        return append(LIMIT).param(config.getLimitParameterName(), limit);
     }
     public Sql limit(Sql sql) {
         return append(LIMIT).append(sql);
     }
 
+    public Sql orderBy(Keyset keyset) {
+        return orderBy(keyset.orderBy());
+    }
+
+    public Sql seek(Keyset keyset, int limit) {
+        return orderBy(keyset).limit(limit);
+    }
+
     public Sql orderBy(String... columns) {
         return orderBy(commaSeparated(columns));
     }
@@ -416,41 +609,407 @@ public class Sql {
     }
 
     public Map<String, Object> getParameters() {
-        initParameters();
-        for (Sql child : children) {
-            collectParameters(child, parameters);
+        if (isLeaf()) {
+            return parameterMap(placeholders());
         }
-        return parameters;
+        countUse();
+        SqlCache.Rendering rendering = rendering();
+        return null != rendering ? rendering.parameterMap() : parameterMap(placeholders());
     }
 
-    private void collectParameters(Sql sql, Map<String, Object> parentParameters) {
-        if (null != sql.parameters) {
-            parentParameters.putAll(sql.parameters);
+    static Map<String, Object> parameterMap(SqlParameter[] placeholders) {
+        if (placeholders.length == 0) {
+            return Collections.emptyMap();
         }
-        for (Sql child : sql.children) {
-            collectParameters(child, parentParameters);
+        Map<String, Object> result = new LinkedHashMap<>((int) Math.ceil(placeholders.length / 0.75));
+        for (SqlParameter placeholder : placeholders) {
+            String name = placeholder.getName();
+            Object value = placeholder.getValue();
+            if (!result.containsKey(name)) {
+                result.put(name, value);
+            } else if (!Objects.deepEquals(result.get(name), value)) {
+                throw new IllegalStateException("Conflicting values for parameter :" + name + ": "
+                        + result.get(name) + " and " + value);
+            }
         }
+        return Collections.unmodifiableMap(result);
+    }
+
+    public Sql toPersistent() {
+        return new PersistentSql(config, FrozenSql.freeze(this));
     }
 
-    private void initParameters() {
-        if (null == parameters) {
-            parameters = new LinkedHashMap<>();
+    public Sql simplify() {
+        return SqlSimplifier.simplify(this);
+    }
+
+    public Sql toCountQuery() {
+        List<Sql> items = clauseItems();
+        boolean select = false;
+        boolean wrap = false;
+        for (Sql item : items) {
+            SqlClause clause = item.clause();
+            select |= clause == SqlClause.SELECT;
+            wrap |= clause == SqlClause.GROUP_BY || clause == SqlClause.HAVING || null != clause && clause.isUnion()
+                    || item.operator() == SqlOperator.DISTINCT;
+        }
+        Sql result = new Sql(null, config);
+        Sql body = new Sql(items.size());
+        SqlClause clause = null;
+        for (Sql item : items) {
+            if (null != item.clause()) {
+                clause = item.clause();
+            }
+            if (null == clause || clause == SqlClause.WITH) {
+                result.append(item);
+            } else if (clause != SqlClause.ORDER_BY && clause != SqlClause.OFFSET && clause != SqlClause.LIMIT
+                    && (wrap || clause != SqlClause.SELECT)) {
+                body.append(item);
+            }
         }
+        if (!select) {
+            throw new IllegalStateException("No SELECT clause to count: " + this);
+        }
+        result.select().append(SqlHelper.count("*"));
+        if (wrap) {
+            result.from(brackets(body)).as("count_query");
+        } else {
+            result.append(body);
+        }
+        return result;
     }
 
-    private void render(StringBuilder stringBuilder) {
+    List<Sql> clauseItems() {
+        List<Sql> items = new ArrayList<>();
         if (null != content) {
-            stringBuilder.append(content);
+            items.add(immutableSql(content));
         }
-        for (Sql child : children) {
-            child.render(stringBuilder);
+        Deque<Sql> pending = new ArrayDeque<>();
+        for (int i = size - 1; i >= 0; i--) {
+            pending.push(children[i]);
+        }
+        while (!pending.isEmpty()) {
+            Sql item = pending.pop();
+            if (item.isClauseContainer()) {
+                for (int i = item.size - 1; i >= 0; i--) {
+                    pending.push(item.children[i]);
+                }
+            } else {
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
+    public CompiledSql compile() {
+        return render(true).toCompiledSql();
+    }
+
+    public BoundSql build() {
+        return render(true).toBoundSql();
+    }
+
+    public BoundSql buildPositional() {
+        return render(true, true).toBoundSql();
+    }
+
+    SqlRenderer renderPositional() {
+        return render(true, true);
+    }
+
+    public void renderTo(Appendable appendable) throws IOException {
+        try {
+            render(new SqlRenderer(new SqlOutput.Chars(appendable), false, isCompact()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public int renderTo(ByteBuffer buffer) {
+        SqlOutput.Utf8 output = new SqlOutput.Utf8(buffer);
+        render(new SqlRenderer(output, false, isCompact()));
+        return (int) output.length();
+    }
+
+    public long renderTo(WritableByteChannel channel) throws IOException {
+        SqlOutput.Channel output = new SqlOutput.Channel(channel);
+        try {
+            render(new SqlRenderer(output, false, isCompact()));
+            output.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
+        return output.length();
+    }
+
+    public SqlConfig getConfig() {
+        return config;
+    }
+
+    String getContent() {
+        return content;
+    }
+
+    boolean isLeaf() {
+        return null == children;
+    }
+
+    boolean isText() {
+        return isLeaf() && null != content;
+    }
+
+    int childCount() {
+        return size;
+    }
+
+    Sql child(int index) {
+        return children[index];
+    }
+
+    SqlClause clause() {
+        return null;
+    }
+
+    SqlOperator operator() {
+        return null;
+    }
+
+    void acceptContent(SqlVisitor visitor) {
+        if (null != content) {
+            visitor.visitText(content);
+        }
+    }
+
+    public void accept(SqlVisitor visitor) {
+        visitor.enterNode(this);
+        acceptContent(visitor);
+        SqlStack stack = new SqlStack();
+        stack.push(this);
+        while (!stack.isEmpty()) {
+            Sql child = stack.nextChild();
+            if (null == child) {
+                visitor.leaveNode(stack.pop());
+            } else if (child.childCount() > 0) {
+                visitor.enterNode(child);
+                child.acceptContent(visitor);
+                stack.push(child);
+            } else {
+                child.acceptContent(visitor);
+            }
+        }
+    }
+
+    public Set<String> getTables() {
+        return SqlTables.of(this);
+    }
+
+    boolean opensBracket() {
+        return size > 0 && children[0].operator() == SqlOperator.LEFT_BRACKET;
+    }
+
+    boolean isBrackets() {
+        return null == content && size == 3 && opensBracket() && children[2].operator() == SqlOperator.RIGHT_BRACKET;
+    }
+
+    boolean isClauseContainer() {
+        return null == content && !isLeaf() && hasClauseChild();
+    }
+
+    private boolean hasClauseChild() {
+        for (int i = 0; i < size; i++) {
+            if (null != children[i].clause()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void renderContent(SqlRenderer renderer) {
+        if (null != content) {
+            renderer.append(content);
+        }
+    }
+
+    private SqlRenderer render(boolean collectParameters) {
+        return render(collectParameters, false);
+    }
+
+    SqlCache.Rendering rendering() {
+        SqlCache.Rendering rendering = cachedRendering();
+        if (null == rendering && uses >= CACHE_MIN_USES) {
+            rendering = SqlRenderer.renderForCache(this);
+            cache().rendering = rendering;
+        }
+        return rendering;
+    }
+
+    SqlCache.Rendering cachedRendering() {
+        return null == cache ? null : cache.rendering;
+    }
+
+    boolean isFrozen() {
+        return isLeaf();
+    }
+
+    void linkParent(Sql parent) {
+        if (!isFrozen()) {
+            cache().addParent(parent);
+        }
+    }
+
+    private SqlCache cache() {
+        SqlCache result = cache;
+        if (null == result) {
+            synchronized (this) {
+                result = cache;
+                if (null == result) {
+                    result = new SqlCache();
+                    cache = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private void invalidate() {
+        cache.rendering = null;
+        Deque<Sql> pending = new ArrayDeque<>(cache.removeParents());
+        while (!pending.isEmpty()) {
+            SqlCache invalidated = pending.pop().cache;
+            if (null != invalidated) {
+                invalidated.rendering = null;
+                invalidated.fingerprint = null;
+                for (Sql parent : invalidated.removeParents()) {
+                    pending.push(parent);
+                }
+            }
+        }
+    }
+
+    SqlFingerprint contentFingerprint() {
+        return SqlFingerprint.of(content);
+    }
+
+    SqlFingerprint cachedFingerprint() {
+        return null == cache ? null : cache.fingerprint;
+    }
+
+    void cacheFingerprint(SqlFingerprint fingerprint) {
+        if (!isLeaf() && (isFrozen() || null != cachedRendering())) {
+            cache().fingerprint = fingerprint;
+        }
+    }
+
+    SqlParameter[] placeholders() {
+        SqlParameter[] result = SqlCache.NO_PARAMETERS;
+        int count = 0;
+        SqlStack stack = new SqlStack();
+        Sql node = this;
+        while (null != node) {
+            SqlCache.Rendering rendering = node.isLeaf() ? null : node.cachedRendering();
+            SqlParameter[] found = null != rendering ? rendering.parameters
+                    : node instanceof SqlParameter ? new SqlParameter[]{(SqlParameter) node} : null;
+            if (null != found && found.length > 0) {
+                if (count + found.length > result.length) {
+                    result = Arrays.copyOf(result, Math.max(count + found.length, result.length << 1));
+                }
+                System.arraycopy(found, 0, result, count, found.length);
+                count += found.length;
+            }
+            if (null == rendering && node.childCount() > 0) {
+                stack.push(node);
+            }
+            node = stack.next();
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    private void countUse() {
+        if (uses < CACHE_MIN_USES) {
+            uses++;
+        }
+    }
+
+    private SqlRenderer render(boolean collectParameters, boolean positional) {
+        return render(collectParameters, positional, config.getFormat());
+    }
+
+    private SqlRenderer render(boolean collectParameters, boolean positional, SqlFormat format) {
+        boolean compact = format == SqlFormat.COMPACT;
+        int capacity = !compact ? lengthHint + RENDER_CAPACITY_RESERVE
+                : lengthHint > 0 ? lengthHint : measureCompact(positional);
+        SqlRenderer renderer = new SqlRenderer(capacity, collectParameters, positional, compact);
+        render(renderer);
+        lengthHint = (int) renderer.length();
+        return renderer;
+    }
+
+    private int measureCompact(boolean positional) {
+        SqlOutput.Count output = new SqlOutput.Count();
+        new SqlRenderer(output, positional, true).render(this);
+        return (int) output.length();
+    }
+
+    private boolean isCompact() {
+        return config.getFormat() == SqlFormat.COMPACT;
+    }
+
+    private void render(SqlRenderer renderer) {
+        countUse();
+        SqlListener listener = config.getListener();
+        if (null == listener) {
+            renderer.render(this);
+            return;
+        }
+        listener.renderStarted(this);
+        long start = System.nanoTime();
+        renderer.render(this);
+        long duration = System.nanoTime() - start;
+        listener.rendered(this, renderer.nodeCount(), renderer.length(), renderer.placeholderCount(), duration);
+    }
+
+    public long fingerprint() {
+        return SqlFingerprint.compute(this).hash;
+    }
+
+    public long identityHash() {
+        long hash = fingerprint();
+        for (SqlParameter placeholder : placeholders()) {
+            hash = SqlFingerprint.mix(hash * 31 + Arrays.deepHashCode(new Object[]{placeholder.getValue()}));
+        }
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof Sql)) {
+            return false;
+        }
+        Sql that = (Sql) other;
+        if (fingerprint() != that.fingerprint()) {
+            return false;
+        }
+        BoundSql thisBound = build();
+        BoundSql thatBound = that.build();
+        return thisBound.getSql().equals(thatBound.getSql())
+                && Arrays.deepEquals(thisBound.parameterNames(), thatBound.parameterNames())
+                && Arrays.deepEquals(thisBound.parameterValues(), thatBound.parameterValues());
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(fingerprint());
     }
 
     @Override
     public String toString() {
-        StringBuilder result = new StringBuilder();
-        render(result);
-        return result.toString().trim();
+        return render(false).getSql();
+    }
+
+    public String format(SqlFormat format) {
+        return render(false, false, format).getSql();
     }
 }
@@ -0,0 +1,83 @@
+package sql.builder;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+final class SqlCache {
+    static final SqlParameter[] NO_PARAMETERS = new SqlParameter[0];
+    static final int[] NO_POSITIONS = new int[0];
+    private static final int MIN_COMPACT_AT = 8;
+
+    volatile Rendering rendering;
+    volatile SqlFingerprint fingerprint;
+    private List<WeakReference<Sql>> parents;
+    private int compactAt = MIN_COMPACT_AT;
+
+    synchronized void addParent(Sql parent) {
+        if (null == parents) {
+            parents = new ArrayList<>(2);
+        } else if (parents.get(parents.size() - 1).get() == parent) {
+            return;
+        }
+        parents.add(new WeakReference<>(parent));
+        if (parents.size() >= compactAt) {
+            compactParents();
+            compactAt = Math.max(MIN_COMPACT_AT, parents.size() << 1);
+        }
+    }
+
+    private void compactParents() {
+        Set<Sql> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        Iterator<WeakReference<Sql>> iterator = parents.iterator();
+        while (iterator.hasNext()) {
+            Sql existing = iterator.next().get();
+            if (null == existing || !seen.add(existing)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    synchronized List<Sql> removeParents() {
+        if (null == parents) {
+            return Collections.emptyList();
+        }
+        List<Sql> result = new ArrayList<>(parents.size());
+        for (WeakReference<Sql> reference : parents) {
+            Sql parent = reference.get();
+            if (null != parent) {
+                result.add(parent);
+            }
+        }
+        parents = null;
+        compactAt = MIN_COMPACT_AT;
+        return result;
+    }
+
+    static final class Rendering {
+        final String text;
+        final SqlParameter[] parameters;
+        final int[] positions;
+        private volatile Map<String, Object> parameterMap;
+
+        Rendering(String text, SqlParameter[] parameters, int[] positions) {
+            this.text = text;
+            this.parameters = parameters;
+            this.positions = positions;
+        }
+
+        Map<String, Object> parameterMap() {
+            Map<String, Object> result = parameterMap;
+            if (null == result) {
+                result = Sql.parameterMap(parameters);
+                parameterMap = result;
+            }
+            return result;
+        }
+    }
+}
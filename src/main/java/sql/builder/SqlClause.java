@@ -0,0 +1,30 @@
+package sql.builder;
+
+public enum SqlClause {
+    WITH,
+    SELECT,
+    FROM,
+    JOIN,
+    LEFT_JOIN,
+    RIGHT_JOIN,
+    INNER_JOIN,
+    FULL_JOIN,
+    WHERE,
+    GROUP_BY,
+    HAVING,
+    UNION,
+    UNION_ALL,
+    ORDER_BY,
+    OFFSET,
+    LIMIT,
+    INSERT_INTO,
+    VALUES;
+
+    public boolean isJoin() {
+        return this == JOIN || this == LEFT_JOIN || this == RIGHT_JOIN || this == INNER_JOIN || this == FULL_JOIN;
+    }
+
+    public boolean isUnion() {
+        return this == UNION || this == UNION_ALL;
+    }
+}
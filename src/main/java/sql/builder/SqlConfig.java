@@ -0,0 +1,132 @@
+package sql.builder;
+
+import java.util.Objects;
+
+public final class SqlConfig {
+    public static final SqlConfig DEFAULT = new SqlConfig("p_offset", "p_limit", Sql.DEFAULT_IN_LIST_MAX_SIZE, null,
+            SqlFormat.PRETTY, SqlInStrategy.LIST, Sql.DEFAULT_IN_LIST_MAX_SIZE);
+    private final String offsetParameterName;
+    private final String limitParameterName;
+    private final int inListMaxSize;
+    private final SqlListener listener;
+    private final SqlFormat format;
+    private final SqlInStrategy inStrategy;
+    private final int inStrategyThreshold;
+
+    private SqlConfig(String offsetParameterName, String limitParameterName, int inListMaxSize,
+                      SqlListener listener, SqlFormat format, SqlInStrategy inStrategy, int inStrategyThreshold) {
+        this.offsetParameterName = checkParameterName(offsetParameterName);
+        this.limitParameterName = checkParameterName(limitParameterName);
+        if (inListMaxSize < 1) {
+            throw new IllegalArgumentException("inListMaxSize must be positive: " + inListMaxSize);
+        }
+        this.inListMaxSize = inListMaxSize;
+        this.listener = listener;
+        this.format = Objects.requireNonNull(format, "format");
+        if (inStrategyThreshold < 0) {
+            throw new IllegalArgumentException("inStrategyThreshold must not be negative: " + inStrategyThreshold);
+        }
+        this.inStrategy = Objects.requireNonNull(inStrategy, "inStrategy");
+        this.inStrategyThreshold = inStrategyThreshold;
+    }
+
+    private static String checkParameterName(String name) {
+        if (null == name || !name.matches("\\w+")) {
+            throw new IllegalArgumentException("Invalid parameter name: " + name);
+        }
+        return name;
+    }
+
+    public SqlConfig withOffsetParameterName(String offsetParameterName) {
+        return new SqlConfig(offsetParameterName, limitParameterName, inListMaxSize, listener, format,
+                inStrategy, inStrategyThreshold);
+    }
+
+    public SqlConfig withLimitParameterName(String limitParameterName) {
+        return new SqlConfig(offsetParameterName, limitParameterName, inListMaxSize, listener, format,
+                inStrategy, inStrategyThreshold);
+    }
+
+    public SqlConfig withInListMaxSize(int inListMaxSize) {
+        return new SqlConfig(offsetParameterName, limitParameterName, inListMaxSize, listener, format,
+                inStrategy, inStrategyThreshold);
+    }
+
+    public SqlConfig withListener(SqlListener listener) {
+        return new SqlConfig(offsetParameterName, limitParameterName, inListMaxSize, listener, format,
+                inStrategy, inStrategyThreshold);
+    }
+
+    public SqlConfig withFormat(SqlFormat format) {
+        return new SqlConfig(offsetParameterName, limitParameterName, inListMaxSize, listener, format,
+                inStrategy, inStrategyThreshold);
+    }
+
+    public SqlConfig withInStrategy(SqlInStrategy inStrategy, int inStrategyThreshold) {
+        return new SqlConfig(offsetParameterName, limitParameterName, inListMaxSize, listener, format,
+                inStrategy, inStrategyThreshold);
+    }
+
+    public String getOffsetParameterName() {
+        return offsetParameterName;
+    }
+
+    public String getLimitParameterName() {
+        return limitParameterName;
+    }
+
+    public int getInListMaxSize() {
+        return inListMaxSize;
+    }
+
+    public SqlListener getListener() {
+        return listener;
+    }
+
+    public SqlFormat getFormat() {
+        return format;
+    }
+
+    public SqlInStrategy getInStrategy() {
+        return inStrategy;
+    }
+
+    public int getInStrategyThreshold() {
+        return inStrategyThreshold;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof SqlConfig)) {
+            return false;
+        }
+        SqlConfig that = (SqlConfig) other;
+        return inListMaxSize == that.inListMaxSize
+                && inStrategyThreshold == that.inStrategyThreshold
+                && offsetParameterName.equals(that.offsetParameterName)
+                && limitParameterName.equals(that.limitParameterName)
+                && Objects.equals(listener, that.listener)
+                && format == that.format
+                && inStrategy == that.inStrategy;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(offsetParameterName, limitParameterName, inListMaxSize, listener, format,
+                inStrategy, inStrategyThreshold);
+    }
+
+    @Override
+    public String toString() {
+        return "SqlConfig{offsetParameterName=" + offsetParameterName
+                + ", limitParameterName=" + limitParameterName
+                + ", inListMaxSize=" + inListMaxSize
+                + ", listener=" + listener
+                + ", format=" + format
+                + ", inStrategy=" + inStrategy
+                + ", inStrategyThreshold=" + inStrategyThreshold + "}";
+    }
+}
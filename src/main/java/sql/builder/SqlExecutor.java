@@ -0,0 +1,258 @@
+package sql.builder;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+public class SqlExecutor implements AutoCloseable {
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private final Connection connection;
+    private final int statementCacheSize;
+    private final LinkedHashMap<Long, CachedStatement> statements;
+    private final SqlResultCache resultCache;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public SqlExecutor(Connection connection) {
+        this(connection, DEFAULT_STATEMENT_CACHE_SIZE);
+    }
+
+    public SqlExecutor(Connection connection, int statementCacheSize) {
+        this(connection, statementCacheSize, null);
+    }
+
+    public SqlExecutor(Connection connection, SqlResultCache resultCache) {
+        this(connection, DEFAULT_STATEMENT_CACHE_SIZE, resultCache);
+    }
+
+    public SqlExecutor(Connection connection, int statementCacheSize, SqlResultCache resultCache) {
+        if (statementCacheSize < 1) {
+            throw new IllegalArgumentException("statementCacheSize must be positive: " + statementCacheSize);
+        }
+        this.connection = connection;
+        this.statementCacheSize = statementCacheSize;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true);
+        this.resultCache = resultCache;
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+
+    public SqlResultCache getResultCache() {
+        return resultCache;
+    }
+
+    public PreparedStatement prepare(Sql sql) throws SQLException {
+        long fingerprint = sql.fingerprint();
+        SqlRenderer rendered = sql.renderPositional();
+        String positionalSql = rendered.getSql();
+        SqlParameter[] placeholders = rendered.placeholders();
+        CachedStatement cached = statements.get(fingerprint);
+        PreparedStatement statement;
+        if (null != cached && !cached.statement.isClosed() && cached.sql.equals(positionalSql)) {
+            hits++;
+            statement = cached.statement;
+            statement.clearParameters();
+        } else {
+            statement = prepareAndCache(fingerprint, positionalSql);
+        }
+        PreparedStatementBinder.bind(statement, placeholders);
+        return statement;
+    }
+
+    public BatchResult executeBatch(Sql template, Iterable<? extends Map<String, ?>> rows) throws SQLException {
+        return executeBatch(template, rows, DEFAULT_BATCH_SIZE);
+    }
+
+    public BatchResult executeBatch(Sql template, Iterable<? extends Map<String, ?>> rows, int batchSize)
+            throws SQLException {
+        CompiledSql compiled = template.compile().positional();
+        try {
+            return executeBatch(template.fingerprint(), compiled, rows, batchSize, compiled::bindTo);
+        } finally {
+            invalidate(template);
+        }
+    }
+
+    public BatchResult executeBatchValues(Sql template, Iterable<Object[]> rows) throws SQLException {
+        return executeBatchValues(template, rows, DEFAULT_BATCH_SIZE);
+    }
+
+    public BatchResult executeBatchValues(Sql template, Iterable<Object[]> rows, int batchSize) throws SQLException {
+        CompiledSql compiled = template.compile().positional();
+        try {
+            return executeBatch(template.fingerprint(), compiled, rows, batchSize, compiled::bindTo);
+        } finally {
+            invalidate(template);
+        }
+    }
+
+    private <R> BatchResult executeBatch(long fingerprint, CompiledSql compiled, Iterable<R> rows, int batchSize,
+                                         RowBinder<R> binder) throws SQLException {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        long started = System.nanoTime();
+        PreparedStatement statement = statement(fingerprint, compiled);
+        int[] updateCounts = new int[0];
+        int rowCount = 0;
+        int batchCount = 0;
+        int pending = 0;
+        statement.clearBatch();
+        try {
+            for (R row : rows) {
+                binder.bind(statement, row);
+                statement.addBatch();
+                rowCount++;
+                if (++pending == batchSize) {
+                    updateCounts = concat(updateCounts, statement.executeBatch());
+                    batchCount++;
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                updateCounts = concat(updateCounts, statement.executeBatch());
+                batchCount++;
+            }
+        } finally {
+            statement.clearBatch();
+        }
+        return new BatchResult(updateCounts, rowCount, batchCount, System.nanoTime() - started);
+    }
+
+    private PreparedStatement statement(long fingerprint, CompiledSql compiled) throws SQLException {
+        CachedStatement cached = statements.get(fingerprint);
+        if (null != cached && !cached.statement.isClosed() && cached.sql.equals(compiled.getSql())) {
+            hits++;
+            cached.statement.clearParameters();
+            return cached.statement;
+        }
+        return prepareAndCache(fingerprint, compiled.getSql());
+    }
+
+    private PreparedStatement prepareAndCache(long fingerprint, String positionalSql) throws SQLException {
+        misses++;
+        PreparedStatement statement = connection.prepareStatement(positionalSql);
+        CachedStatement replaced = statements.put(fingerprint, new CachedStatement(statement, positionalSql));
+        if (null != replaced) {
+            replaced.statement.close();
+        }
+        evict();
+        return statement;
+    }
+
+    private static int[] concat(int[] first, int[] second) {
+        int[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    public <T> T query(Sql sql, ResultSetHandler<T> handler) throws SQLException {
+        return null == resultCache ? execute(sql, handler) : resultCache.query(this, sql, handler);
+    }
+
+    <T> T execute(Sql sql, ResultSetHandler<T> handler) throws SQLException {
+        try (ResultSet resultSet = prepare(sql).executeQuery()) {
+            return handler.handle(resultSet);
+        }
+    }
+
+    public int update(Sql sql) throws SQLException {
+        try {
+            return prepare(sql).executeUpdate();
+        } finally {
+            invalidate(sql);
+        }
+    }
+
+    private void invalidate(Sql statement) {
+        if (null == resultCache) {
+            return;
+        }
+        Set<String> tables = statement.getTables();
+        if (tables.isEmpty()) {
+            resultCache.invalidateAll();
+        } else {
+            resultCache.invalidate(tables);
+        }
+    }
+
+    public long update(InsertSql insert) throws SQLException {
+        long total = 0;
+        for (Sql statement : insert.toStatements()) {
+            total += update(statement);
+        }
+        return total;
+    }
+
+    private void evict() throws SQLException {
+        Iterator<Map.Entry<Long, CachedStatement>> eldest = statements.entrySet().iterator();
+        while (statements.size() > statementCacheSize) {
+            CachedStatement evicted = eldest.next().getValue();
+            eldest.remove();
+            evictions++;
+            evicted.statement.close();
+        }
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public int getCachedStatementCount() {
+        return statements.size();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        SQLException failure = null;
+        for (CachedStatement cached : statements.values()) {
+            try {
+                cached.statement.close();
+            } catch (SQLException e) {
+                if (null == failure) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        statements.clear();
+        if (null != failure) {
+            throw failure;
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowBinder<R> {
+        void bind(PreparedStatement statement, R row) throws SQLException;
+    }
+
+    private static final class CachedStatement {
+        private final PreparedStatement statement;
+        private final String sql;
+
+        private CachedStatement(PreparedStatement statement, String sql) {
+            this.statement = statement;
+            this.sql = sql;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package sql.builder;
+
+import java.util.Arrays;
+
+final class SqlFingerprint {
+    static final SqlFingerprint EMPTY = new SqlFingerprint(0, 1);
+    private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+    private static final long PARAMETER_SEED = 0x5851F42D4C957F2DL;
+
+    final long hash;
+    final long power;
+
+    private SqlFingerprint(long hash, long power) {
+        this.hash = hash;
+        this.power = power;
+    }
+
+    static SqlFingerprint of(String token) {
+        return null == token || token.isEmpty() ? EMPTY : new SqlFingerprint(hash(token, 0), MULTIPLIER);
+    }
+
+    static SqlFingerprint ofParameter(String name) {
+        return new SqlFingerprint(hash(name, PARAMETER_SEED), MULTIPLIER);
+    }
+
+    static SqlFingerprint ofTokens(String separator, String[] tokens) {
+        long separatorHash = hash(separator, 0);
+        long hash = 0;
+        long power = 1;
+        for (int i = 0; i < tokens.length; i++) {
+            if (i > 0) {
+                hash = hash * MULTIPLIER + separatorHash;
+                power *= MULTIPLIER;
+            }
+            hash = hash * MULTIPLIER + hash(tokens[i], 0);
+            power *= MULTIPLIER;
+        }
+        return new SqlFingerprint(hash, power);
+    }
+
+    SqlFingerprint append(SqlFingerprint next) {
+        if (next.power == 1) {
+            return this;
+        }
+        return new SqlFingerprint(hash * next.power + next.hash, power * next.power);
+    }
+
+    static SqlFingerprint compute(Sql sql) {
+        SqlFingerprint cached = sql.cachedFingerprint();
+        if (null != cached) {
+            return cached;
+        }
+        Sql[] nodes = new Sql[16];
+        SqlFingerprint[] values = new SqlFingerprint[16];
+        int[] positions = new int[16];
+        int depth = 0;
+        nodes[0] = sql;
+        values[0] = sql.contentFingerprint();
+        depth++;
+        while (depth > 0) {
+            int top = depth - 1;
+            Sql node = nodes[top];
+            if (positions[top] < node.childCount()) {
+                Sql child = node.child(positions[top]++);
+                SqlFingerprint childValue = child.isLeaf() ? child.contentFingerprint() : child.cachedFingerprint();
+                if (null != childValue) {
+                    values[top] = values[top].append(childValue);
+                    continue;
+                }
+                if (depth == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, depth << 1);
+                    values = Arrays.copyOf(values, depth << 1);
+                    positions = Arrays.copyOf(positions, depth << 1);
+                }
+                nodes[depth] = child;
+                values[depth] = child.contentFingerprint();
+                positions[depth] = 0;
+                depth++;
+                continue;
+            }
+            SqlFingerprint value = values[top];
+            node.cacheFingerprint(value);
+            nodes[top] = null;
+            values[top] = null;
+            depth--;
+            if (depth > 0) {
+                values[depth - 1] = values[depth - 1].append(value);
+            } else {
+                return value;
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    static long hash(String token, long seed) {
+        long hash = 0xcbf29ce484222325L ^ seed;
+        for (int i = 0; i < token.length(); i++) {
+            hash ^= token.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
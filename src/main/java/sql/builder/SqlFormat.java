@@ -0,0 +1,6 @@
+package sql.builder;
+
+public enum SqlFormat {
+    PRETTY,
+    COMPACT
+}
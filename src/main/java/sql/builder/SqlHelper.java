@@ -1,73 +1,78 @@
 package sql.builder;
 
 import java.util.Arrays;
-import java.util.Collections;
+import java.util.Collection;
 
 public class SqlHelper {
 
-    public static final Sql SELECT = immutableSql("\nSELECT ");
-    public static final Sql DISTINCT = immutableSql("DISTINCT ");
-    public static final Sql FROM = immutableSql("\nFROM ");
+    public static final Sql SELECT = keyword("\nSELECT ", SqlClause.SELECT);
+    public static final Sql DISTINCT = keyword("DISTINCT ", SqlOperator.DISTINCT);
+    public static final Sql FROM = keyword("\nFROM ", SqlClause.FROM);
 
-    public static final Sql JOIN = immutableSql("\nJOIN ");
-    public static final Sql LEFT_JOIN = immutableSql("\nLEFT JOIN ");
-    public static final Sql RIGHT_JOIN = immutableSql("\nRIGHT JOIN ");
-    public static final Sql INNER_JOIN = immutableSql("\nINNER JOIN ");
-    public static final Sql FULL_JOIN = immutableSql("\nFULL JOIN ");
+    public static final Sql JOIN = keyword("\nJOIN ", SqlClause.JOIN);
+    public static final Sql LEFT_JOIN = keyword("\nLEFT JOIN ", SqlClause.LEFT_JOIN);
+    public static final Sql RIGHT_JOIN = keyword("\nRIGHT JOIN ", SqlClause.RIGHT_JOIN);
+    public static final Sql INNER_JOIN = keyword("\nINNER JOIN ", SqlClause.INNER_JOIN);
+    public static final Sql FULL_JOIN = keyword("\nFULL JOIN ", SqlClause.FULL_JOIN);
 
-    public static final Sql WHERE = immutableSql("\nWHERE ");
-    public static final Sql GROUP_BY = immutableSql("\nGROUP BY ");
-    public static final Sql HAVING = immutableSql("\nHAVING ");
-    public static final Sql ORDER_BY = immutableSql("\nORDER BY ");
+    public static final Sql WHERE = keyword("\nWHERE ", SqlClause.WHERE);
+    public static final Sql GROUP_BY = keyword("\nGROUP BY ", SqlClause.GROUP_BY);
+    public static final Sql HAVING = keyword("\nHAVING ", SqlClause.HAVING);
+    public static final Sql ORDER_BY = keyword("\nORDER BY ", SqlClause.ORDER_BY);
 
-    public static final Sql AND = immutableSql("\nAND ");
-    public static final Sql OR = immutableSql("\nOR ");
-    public static final Sql AS = immutableSql(" AS ");
-    public static final Sql IN = immutableSql(" IN ");
-    public static final Sql ON = immutableSql(" ON ");
-    public static final Sql EQUAL = immutableSql(" = ");
-    public static final Sql NOT_EQUAL = immutableSql(" != ");
-    public static final Sql LEFT_BRACKET = immutableSql("(");
-    public static final Sql RIGHT_BRACKET = immutableSql(")");
-    public static final Sql QUOTE = immutableSql("'");
+    public static final Sql AND = keyword("\nAND ", SqlOperator.AND);
+    public static final Sql OR = keyword("\nOR ", SqlOperator.OR);
+    public static final Sql AS = keyword(" AS ", SqlOperator.AS);
+    public static final Sql IN = keyword(" IN ", SqlOperator.IN);
+    public static final Sql ON = keyword(" ON ", SqlOperator.ON);
+    public static final Sql EQUAL = keyword(" = ", SqlOperator.EQUAL);
+    public static final Sql NOT_EQUAL = keyword(" != ", SqlOperator.NOT_EQUAL);
+    public static final Sql LEFT_BRACKET = keyword("(", SqlOperator.LEFT_BRACKET);
+    public static final Sql RIGHT_BRACKET = keyword(")", SqlOperator.RIGHT_BRACKET);
+    public static final Sql QUOTE = keyword("'");
 
-    public static final Sql LIKE = immutableSql(" LIKE ");
-    public static final Sql NOT_LIKE = immutableSql(" NOT LIKE ");
+    public static final Sql LIKE = keyword(" LIKE ", SqlOperator.LIKE);
+    public static final Sql NOT_LIKE = keyword(" NOT LIKE ", SqlOperator.NOT_LIKE);
 
-    public static final Sql UNION = immutableSql("\nUNION ");
-    public static final Sql UNION_ALL = immutableSql("\nUNION ALL ");
+    public static final Sql UNION = keyword("\nUNION ", SqlClause.UNION);
+    public static final Sql UNION_ALL = keyword("\nUNION ALL ", SqlClause.UNION_ALL);
 
-    public static final Sql GREATER = immutableSql(" > ");
-    public static final Sql LESS = immutableSql(" < ");
-    public static final Sql GREATER_EQUAL = immutableSql(" >= ");
-    public static final Sql LESS_EQUAL = immutableSql(" <= ");
+    public static final Sql GREATER = keyword(" > ", SqlOperator.GREATER);
+    public static final Sql LESS = keyword(" < ", SqlOperator.LESS);
+    public static final Sql GREATER_EQUAL = keyword(" >= ", SqlOperator.GREATER_EQUAL);
+    public static final Sql LESS_EQUAL = keyword(" <= ", SqlOperator.LESS_EQUAL);
 
-    public static final Sql NOT = immutableSql(" NOT ");
+    public static final Sql NOT = keyword(" NOT ", SqlOperator.NOT);
+    public static final Sql NULL = keyword("NULL");
+    public static final Sql ANY = keyword("ANY");
 
-    public static final Sql ASC = immutableSql(" ASC");
-    public static final Sql DESC = immutableSql(" DESC");
+    public static final Sql ASC = keyword(" ASC", SqlOperator.ASC);
+    public static final Sql DESC = keyword(" DESC", SqlOperator.DESC);
 
-    public static final Sql EXISTS = immutableSql("EXISTS\n");
-    public static final Sql NOT_EXISTS = immutableSql("NOT EXISTS\n");
+    public static final Sql EXISTS = keyword("EXISTS\n", SqlOperator.EXISTS);
+    public static final Sql NOT_EXISTS = keyword("NOT EXISTS\n", SqlOperator.NOT_EXISTS);
 
-    public static final Sql IS_NULL = immutableSql(" IS NULL");
-    public static final Sql IS_NOT_NULL = immutableSql(" IS NOT NULL");
+    public static final Sql IS_NULL = keyword(" IS NULL", SqlOperator.IS_NULL);
+    public static final Sql IS_NOT_NULL = keyword(" IS NOT NULL", SqlOperator.IS_NOT_NULL);
 
-    public static final Sql COUNT = immutableSql("COUNT");
-    public static final Sql SUM = immutableSql("SUM");
-    public static final Sql MIN = immutableSql("MIN");
-    public static final Sql MAX = immutableSql("MAX");
+    public static final Sql COUNT = keyword("COUNT", SqlOperator.COUNT);
+    public static final Sql SUM = keyword("SUM", SqlOperator.SUM);
+    public static final Sql MIN = keyword("MIN", SqlOperator.MIN);
+    public static final Sql MAX = keyword("MAX", SqlOperator.MAX);
 
-    public static final Sql WITH = immutableSql("WITH ");
+    public static final Sql WITH = keyword("WITH ", SqlClause.WITH);
 
-    public static final Sql OFFSET = immutableSql(" OFFSET ");
-    public static final Sql LIMIT = immutableSql(" LIMIT ");
+    public static final Sql INSERT_INTO = keyword("\nINSERT INTO ", SqlClause.INSERT_INTO);
+    public static final Sql VALUES = keyword("\nVALUES ", SqlClause.VALUES);
 
-    public static final Sql SPACE = immutableSql(" ");
-    public static final Sql COLON = immutableSql(":");
-    public static final Sql COMMA = immutableSql(", ");
-    public static final Sql NEW_LINE = immutableSql("\n");
-    public static final Sql COMMA_NEW_LINE = immutableSql(",\n");
+    public static final Sql OFFSET = keyword(" OFFSET ", SqlClause.OFFSET);
+    public static final Sql LIMIT = keyword(" LIMIT ", SqlClause.LIMIT);
+
+    public static final Sql SPACE = keyword(" ");
+    public static final Sql COLON = keyword(":");
+    public static final Sql COMMA = keyword(", ", SqlOperator.COMMA);
+    public static final Sql NEW_LINE = keyword("\n");
+    public static final Sql COMMA_NEW_LINE = keyword(",\n", SqlOperator.COMMA);
 
     public static Sql sql(String content) {
         return new Sql(content);
@@ -77,8 +82,28 @@ public class SqlHelper {
         return new Sql(content.toString());
     }
 
+    public static Sql persistent() {
+        return new PersistentSql(SqlConfig.DEFAULT);
+    }
+
+    public static Sql persistent(Sql base) {
+        return base.toPersistent();
+    }
+
+    static Sql keyword(String content) {
+        return new SqlKeyword(content, null, null);
+    }
+
+    static Sql keyword(String content, SqlClause clause) {
+        return new SqlKeyword(content, clause, null);
+    }
+
+    static Sql keyword(String content, SqlOperator operator) {
+        return new SqlKeyword(content, null, operator);
+    }
+
     static Sql immutableSql(String content) {
-        return new Sql(content, Collections.emptyList());
+        return new Sql(content, (Sql[]) null);
     }
 
     public static Sql brackets(String content) {
@@ -127,10 +152,42 @@ public class SqlHelper {
         return new Sql().select(columns);
     }
 
+    public static InsertSql insertInto(String table, String... columns) {
+        return new InsertSql(table, columns);
+    }
+
     public static Sql param(String paramName, Object paramValue) {
         return new Sql().param(paramName, paramValue);
     }
 
+    public static Sql param(String paramName, int paramValue) {
+        return new Sql().param(paramName, paramValue);
+    }
+
+    public static Sql param(String paramName, long paramValue) {
+        return new Sql().param(paramName, paramValue);
+    }
+
+    public static Sql param(String paramName, double paramValue) {
+        return new Sql().param(paramName, paramValue);
+    }
+
+    public static Sql param(String paramName, byte paramValue) {
+        return new Sql().param(paramName, paramValue);
+    }
+
+    public static Sql param(String paramName, short paramValue) {
+        return new Sql().param(paramName, paramValue);
+    }
+
+    public static Sql param(String paramName, char paramValue) {
+        return new Sql().param(paramName, paramValue);
+    }
+
+    public static Sql param(String paramName, float paramValue) {
+        return new Sql().param(paramName, paramValue);
+    }
+
     public static Sql asc(String column) {
         return new Sql(column).asc();
     }
@@ -138,6 +195,26 @@ public class SqlHelper {
         return new Sql(column).desc();
     }
 
+    public static Sql in(String column, Collection<?> values) {
+        return new Sql().in(column, values);
+    }
+
+    public static Sql in(String column, Collection<?> values, String paramPrefix) {
+        return new Sql().in(column, values, paramPrefix);
+    }
+
+    public static Sql in(SqlConfig config, String column, Collection<?> values) {
+        return new Sql(null, config).in(column, values);
+    }
+
+    public static Sql in(SqlConfig config, String column, Collection<?> values, String paramPrefix) {
+        return new Sql(null, config).in(column, values, paramPrefix);
+    }
+
+    public static Sql in(String column, Collection<?> values, int maxListSize) {
+        return new Sql().in(column, values, maxListSize);
+    }
+
     public static Sql exists(Sql sql) {
         return new Sql().exists(sql);
     }
@@ -180,19 +257,23 @@ public class SqlHelper {
     }
 
     public static Sql concatenate(Sql separator, String... sqlFragments) {
+        if (sqlFragments.length > 1 && separator.isText()) {
+            return new SqlTokens(separator, sqlFragments.clone());
+        }
         Sql[] sqlArray = Arrays.stream(sqlFragments)
                 .map(SqlHelper::immutableSql)
                 .toArray(Sql[]::new);
         return concatenate(separator, sqlArray);
     }
     public static Sql concatenate(Sql separator, Sql... sqlFragments) {
-        Sql result = new Sql(null);
         if (sqlFragments.length == 0) {
-            return result;
+            return new Sql(null);
         } else if (sqlFragments.length == 1) {
             return sqlFragments[0];
         }
 
+        Sql result = new Sql(2 * sqlFragments.length - 1);
+
         boolean isFirst = true;
         for (Sql sql : sqlFragments) {
             if (!isFirst) {
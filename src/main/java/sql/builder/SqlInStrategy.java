@@ -0,0 +1,7 @@
+package sql.builder;
+
+public enum SqlInStrategy {
+    LIST,
+    ARRAY,
+    VALUES
+}
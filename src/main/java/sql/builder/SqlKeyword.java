@@ -0,0 +1,49 @@
+package sql.builder;
+
+import java.nio.charset.StandardCharsets;
+
+final class SqlKeyword extends Sql {
+    private final byte[] utf8;
+    private final SqlFingerprint fingerprint;
+    private final SqlClause clause;
+    private final SqlOperator operator;
+
+    SqlKeyword(String content, SqlClause clause, SqlOperator operator) {
+        super(content, (Sql[]) null);
+        this.clause = clause;
+        this.operator = operator;
+        this.utf8 = content.getBytes(StandardCharsets.UTF_8);
+        this.fingerprint = SqlFingerprint.of(content);
+    }
+
+    @Override
+    SqlFingerprint contentFingerprint() {
+        return fingerprint;
+    }
+
+    @Override
+    SqlClause clause() {
+        return clause;
+    }
+
+    @Override
+    SqlOperator operator() {
+        return operator;
+    }
+
+    @Override
+    void acceptContent(SqlVisitor visitor) {
+        if (null != clause) {
+            visitor.visitClause(clause, getContent());
+        } else if (null != operator) {
+            visitor.visitOperator(operator, getContent());
+        } else {
+            visitor.visitText(getContent());
+        }
+    }
+
+    @Override
+    void renderContent(SqlRenderer renderer) {
+        renderer.appendKeyword(getContent(), utf8);
+    }
+}
@@ -0,0 +1,10 @@
+package sql.builder;
+
+@FunctionalInterface
+public interface SqlListener {
+
+    default void renderStarted(Sql sql) {
+    }
+
+    void rendered(Sql sql, int nodeCount, long length, int parameterCount, long durationNanos);
+}
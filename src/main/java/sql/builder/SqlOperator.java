@@ -0,0 +1,41 @@
+package sql.builder;
+
+public enum SqlOperator {
+    AND,
+    OR,
+    NOT,
+    EQUAL,
+    NOT_EQUAL,
+    GREATER,
+    LESS,
+    GREATER_EQUAL,
+    LESS_EQUAL,
+    IN,
+    LIKE,
+    NOT_LIKE,
+    IS_NULL,
+    IS_NOT_NULL,
+    EXISTS,
+    NOT_EXISTS,
+    ON,
+    AS,
+    DISTINCT,
+    ASC,
+    DESC,
+    COUNT,
+    SUM,
+    MIN,
+    MAX,
+    LEFT_BRACKET,
+    RIGHT_BRACKET,
+    COMMA;
+
+    public boolean isComparison() {
+        return this == EQUAL || this == NOT_EQUAL || this == GREATER || this == LESS
+                || this == GREATER_EQUAL || this == LESS_EQUAL;
+    }
+
+    public boolean isLogical() {
+        return this == AND || this == OR || this == NOT;
+    }
+}
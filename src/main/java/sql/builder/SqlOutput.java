@@ -0,0 +1,171 @@
+package sql.builder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+abstract class SqlOutput {
+
+    abstract void write(CharSequence content, int from, int to, byte[] utf8);
+
+    abstract long length();
+
+    static final class Text extends SqlOutput {
+        private final StringBuilder text;
+
+        Text(int capacity) {
+            text = new StringBuilder(capacity);
+        }
+
+        @Override
+        void write(CharSequence content, int from, int to, byte[] utf8) {
+            text.append(content, from, to);
+        }
+
+        @Override
+        long length() {
+            return text.length();
+        }
+
+        @Override
+        public String toString() {
+            return text.toString();
+        }
+    }
+
+    static final class Count extends SqlOutput {
+        private long length;
+
+        @Override
+        void write(CharSequence content, int from, int to, byte[] utf8) {
+            length += to - from;
+        }
+
+        @Override
+        long length() {
+            return length;
+        }
+    }
+
+    static final class Chars extends SqlOutput {
+        private final Appendable appendable;
+        private long length;
+
+        Chars(Appendable appendable) {
+            this.appendable = appendable;
+        }
+
+        @Override
+        void write(CharSequence content, int from, int to, byte[] utf8) {
+            try {
+                appendable.append(content, from, to);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            length += to - from;
+        }
+
+        @Override
+        long length() {
+            return length;
+        }
+    }
+
+    static class Utf8 extends SqlOutput {
+        private static final int SCRATCH_SIZE = 512;
+        private final byte[] scratch = new byte[SCRATCH_SIZE];
+        final ByteBuffer buffer;
+        long length;
+
+        Utf8(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        void write(CharSequence content, int from, int to, byte[] utf8) {
+            if (null != utf8) {
+                int tail = content.length() - to;
+                int count = utf8.length - from - tail;
+                ensureRemaining(count);
+                buffer.put(utf8, from, count);
+                length += count;
+                return;
+            }
+            int i = from;
+            while (i < to) {
+                int count = 0;
+                while (i < to && count <= scratch.length - 4) {
+                    char c = content.charAt(i++);
+                    if (c < 0x80) {
+                        scratch[count++] = (byte) c;
+                    } else if (c < 0x800) {
+                        scratch[count++] = (byte) (0xC0 | c >> 6);
+                        scratch[count++] = (byte) (0x80 | c & 0x3F);
+                    } else if (Character.isHighSurrogate(c) && i < to && Character.isLowSurrogate(content.charAt(i))) {
+                        int codePoint = Character.toCodePoint(c, content.charAt(i++));
+                        scratch[count++] = (byte) (0xF0 | codePoint >> 18);
+                        scratch[count++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                        scratch[count++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                        scratch[count++] = (byte) (0x80 | codePoint & 0x3F);
+                    } else if (Character.isSurrogate(c)) {
+                        scratch[count++] = (byte) '?';
+                    } else {
+                        scratch[count++] = (byte) (0xE0 | c >> 12);
+                        scratch[count++] = (byte) (0x80 | c >> 6 & 0x3F);
+                        scratch[count++] = (byte) (0x80 | c & 0x3F);
+                    }
+                }
+                ensureRemaining(count);
+                buffer.put(scratch, 0, count);
+                length += count;
+            }
+        }
+
+        void ensureRemaining(int count) {
+        }
+
+        @Override
+        long length() {
+            return length;
+        }
+    }
+
+    static final class Channel extends Utf8 {
+        private static final int BUFFER_SIZE = 8192;
+        private final WritableByteChannel channel;
+
+        Channel(WritableByteChannel channel) {
+            super(ByteBuffer.allocate(BUFFER_SIZE));
+            this.channel = channel;
+        }
+
+        @Override
+        void write(CharSequence content, int from, int to, byte[] utf8) {
+            if (null != utf8 && utf8.length > buffer.capacity()) {
+                super.write(content, from, to, null);
+            } else {
+                super.write(content, from, to, utf8);
+            }
+        }
+
+        @Override
+        void ensureRemaining(int count) {
+            if (buffer.remaining() < count) {
+                flush();
+            }
+        }
+
+        void flush() {
+            buffer.flip();
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            buffer.clear();
+        }
+    }
+}
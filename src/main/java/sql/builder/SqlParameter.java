@@ -0,0 +1,110 @@
+package sql.builder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+class SqlParameter extends Sql {
+    private final String name;
+    private final Object value;
+    private SqlFingerprint fingerprint;
+
+    SqlParameter(String name, Object value) {
+        super(":" + name, (Sql[]) null);
+        this.name = name;
+        this.value = value;
+    }
+
+    @Override
+    void renderContent(SqlRenderer renderer) {
+        renderer.appendParameter(this);
+    }
+
+    @Override
+    void acceptContent(SqlVisitor visitor) {
+        visitor.visitParameter(name, getValue());
+    }
+
+    @Override
+    SqlFingerprint contentFingerprint() {
+        SqlFingerprint result = fingerprint;
+        if (null == result) {
+            result = SqlFingerprint.ofParameter(name);
+            fingerprint = result;
+        }
+        return result;
+    }
+
+    @Override
+    boolean isText() {
+        return false;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    Object getValue() {
+        return value;
+    }
+
+    void bind(PreparedStatement statement, int index) throws SQLException {
+        PreparedStatementBinder.bind(statement, index, value);
+    }
+
+    static final class OfInt extends SqlParameter {
+        private final int value;
+
+        OfInt(String name, int value) {
+            super(name, null);
+            this.value = value;
+        }
+
+        @Override
+        Object getValue() {
+            return value;
+        }
+
+        @Override
+        void bind(PreparedStatement statement, int index) throws SQLException {
+            statement.setInt(index, value);
+        }
+    }
+
+    static final class OfLong extends SqlParameter {
+        private final long value;
+
+        OfLong(String name, long value) {
+            super(name, null);
+            this.value = value;
+        }
+
+        @Override
+        Object getValue() {
+            return value;
+        }
+
+        @Override
+        void bind(PreparedStatement statement, int index) throws SQLException {
+            statement.setLong(index, value);
+        }
+    }
+
+    static final class OfDouble extends SqlParameter {
+        private final double value;
+
+        OfDouble(String name, double value) {
+            super(name, null);
+            this.value = value;
+        }
+
+        @Override
+        Object getValue() {
+            return value;
+        }
+
+        @Override
+        void bind(PreparedStatement statement, int index) throws SQLException {
+            statement.setDouble(index, value);
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package sql.builder;
+
+import java.util.Arrays;
+
+final class SqlRenderer {
+    private static final int DEFAULT_CAPACITY = 64;
+    private static final int DEFAULT_PARAMETERS_CAPACITY = 8;
+    static final String POSITIONAL_PLACEHOLDER = "?";
+
+    private final SqlOutput output;
+    private final boolean collectParameters;
+    private final boolean positional;
+    private final boolean trim;
+    private final boolean compact;
+    private final SqlStack stack = new SqlStack();
+    private final StringBuilder pendingWhitespace = new StringBuilder();
+    private final StringBuilder pendingLiteral = new StringBuilder();
+    private boolean pendingLayout;
+    private CharSequence pending;
+    private int pendingFrom;
+    private int pendingTo;
+    private boolean started;
+    private char last;
+    private SqlParameter[] parameters;
+    private int[] positions;
+    private int parameterCount;
+    private int placeholderCount;
+    private int nodeCount;
+
+    SqlRenderer(int capacity, boolean collectParameters, boolean positional, boolean compact) {
+        this(new SqlOutput.Text(capacity > 0 ? capacity : DEFAULT_CAPACITY), collectParameters, positional, true,
+                compact);
+    }
+
+    SqlRenderer(SqlOutput output, boolean positional, boolean compact) {
+        this(output, false, positional, true, compact);
+    }
+
+    private SqlRenderer(SqlOutput output, boolean collectParameters, boolean positional, boolean trim,
+                        boolean compact) {
+        this.output = output;
+        this.collectParameters = collectParameters;
+        this.positional = positional;
+        this.trim = trim;
+        this.compact = compact;
+    }
+
+    void render(Sql sql) {
+        nodeCount++;
+        if (appendCached(sql)) {
+            return;
+        }
+        sql.renderContent(this);
+        stack.push(sql);
+        Sql child;
+        while (null != (child = stack.next())) {
+            nodeCount++;
+            if (appendCached(child)) {
+                continue;
+            }
+            child.renderContent(this);
+            if (child.childCount() > 0) {
+                stack.push(child);
+            }
+        }
+    }
+
+    static SqlCache.Rendering renderForCache(Sql sql) {
+        SqlRenderer renderer = new SqlRenderer(new SqlOutput.Text(DEFAULT_CAPACITY), true, false, false, false);
+        sql.renderContent(renderer);
+        renderer.stack.push(sql);
+        Sql child;
+        while (null != (child = renderer.stack.next())) {
+            child.linkParent(renderer.stack.top());
+            SqlCache.Rendering cached = child.cachedRendering();
+            if (null != cached) {
+                renderer.appendRendering(cached);
+                continue;
+            }
+            child.renderContent(renderer);
+            if (child.childCount() > 0) {
+                renderer.stack.push(child);
+            }
+        }
+        return new SqlCache.Rendering(renderer.output.toString(),
+                null == renderer.parameters ? SqlCache.NO_PARAMETERS : Arrays.copyOf(renderer.parameters, renderer.parameterCount),
+                null == renderer.positions ? SqlCache.NO_POSITIONS : Arrays.copyOf(renderer.positions, renderer.parameterCount));
+    }
+
+    private boolean appendCached(Sql sql) {
+        if (!trim || compact || sql.childCount() == 0) {
+            return false;
+        }
+        SqlCache.Rendering rendering = sql.rendering();
+        if (null == rendering) {
+            return false;
+        }
+        appendRendering(rendering);
+        return true;
+    }
+
+    private void appendRendering(SqlCache.Rendering rendering) {
+        String cachedText = rendering.text;
+        if (!collectParameters && !positional) {
+            placeholderCount += rendering.parameters.length;
+            append(cachedText);
+            return;
+        }
+        int copied = 0;
+        for (int i = 0; i < rendering.parameters.length; i++) {
+            append(cachedText, copied, rendering.positions[i]);
+            appendParameter(rendering.parameters[i]);
+            copied = rendering.positions[i] + rendering.parameters[i].getContent().length();
+        }
+        append(cachedText, copied, cachedText.length());
+    }
+
+    void append(String content) {
+        append(content, 0, content.length(), null, false);
+    }
+
+    void appendKeyword(String content, byte[] utf8) {
+        append(content, 0, content.length(), utf8, true);
+    }
+
+    private void append(String content, int from, int to) {
+        append(content, from, to, null, false);
+    }
+
+    private void append(String content, int from, int to, byte[] utf8, boolean layout) {
+        if (!trim) {
+            output.write(content, from, to, utf8);
+            return;
+        }
+        int start = from;
+        while (start < to && content.charAt(start) <= ' ') {
+            start++;
+        }
+        if (start == to) {
+            if (started) {
+                addWhitespace(content, from, to, layout);
+            }
+            return;
+        }
+        int last = to;
+        while (content.charAt(last - 1) <= ' ') {
+            last--;
+        }
+        if (started && compact) {
+            if (start > from) {
+                addWhitespace(content, from, start, layout);
+            }
+            flushWhitespace(content.charAt(start));
+            output.write(content, start, last, utf8);
+        } else if (started) {
+            flushWhitespace(content.charAt(start));
+            output.write(content, from, last, utf8);
+        } else {
+            output.write(content, start, last, utf8);
+            started = true;
+        }
+        this.last = content.charAt(last - 1);
+        if (last < to) {
+            addWhitespace(content, last, to, layout);
+        }
+    }
+
+    private void addWhitespace(String content, int from, int to, boolean layout) {
+        if (compact) {
+            if (layout) {
+                pendingLayout = true;
+            } else {
+                pendingLiteral.append(content, from, to);
+            }
+            return;
+        }
+        if (null == pending) {
+            pending = content;
+            pendingFrom = from;
+            pendingTo = to;
+            return;
+        }
+        if (pending != pendingWhitespace) {
+            pendingWhitespace.setLength(0);
+            pendingWhitespace.append(pending, pendingFrom, pendingTo);
+            pending = pendingWhitespace;
+            pendingFrom = 0;
+        }
+        pendingWhitespace.append(content, from, to);
+        pendingTo = pendingWhitespace.length();
+    }
+
+    private void flushWhitespace(char next) {
+        if (compact) {
+            if (pendingLiteral.length() > 0) {
+                output.write(pendingLiteral, 0, pendingLiteral.length(), null);
+                pendingLiteral.setLength(0);
+            } else if (pendingLayout && last != '(' && next != ')' && next != ',') {
+                output.write(" ", 0, 1, null);
+            }
+            pendingLayout = false;
+        } else if (null != pending) {
+            output.write(pending, pendingFrom, pendingTo, null);
+            pending = null;
+        }
+    }
+
+    void appendParameter(SqlParameter parameter) {
+        placeholderCount++;
+        if (collectParameters) {
+            if (null == parameters) {
+                parameters = new SqlParameter[DEFAULT_PARAMETERS_CAPACITY];
+                positions = new int[DEFAULT_PARAMETERS_CAPACITY];
+            } else if (parameterCount == parameters.length) {
+                parameters = Arrays.copyOf(parameters, parameterCount << 1);
+                positions = Arrays.copyOf(positions, parameterCount << 1);
+            }
+            if (started) {
+                flushWhitespace(positional ? POSITIONAL_PLACEHOLDER.charAt(0) : ':');
+            }
+            parameters[parameterCount] = parameter;
+            positions[parameterCount] = (int) output.length();
+            parameterCount++;
+        }
+        append(positional ? POSITIONAL_PLACEHOLDER : parameter.getContent());
+    }
+
+    long length() {
+        return output.length();
+    }
+
+    int nodeCount() {
+        return nodeCount;
+    }
+
+    int placeholderCount() {
+        return placeholderCount;
+    }
+
+    SqlParameter[] placeholders() {
+        return null == parameters ? SqlCache.NO_PARAMETERS : Arrays.copyOf(parameters, parameterCount);
+    }
+
+    String getSql() {
+        return output.toString();
+    }
+
+    BoundSql toBoundSql() {
+        String[] names = new String[parameterCount];
+        Object[] values = new Object[parameterCount];
+        for (int i = 0; i < parameterCount; i++) {
+            names[i] = parameters[i].getName();
+            values[i] = parameters[i].getValue();
+        }
+        return new BoundSql(getSql(), names, values);
+    }
+
+    CompiledSql toCompiledSql() {
+        BoundSql boundSql = toBoundSql();
+        int[] offsets = null == positions ? new int[0] : Arrays.copyOf(positions, parameterCount);
+        return new CompiledSql(boundSql.getSql(), boundSql.parameterNames(), boundSql.parameterValues(), offsets,
+                positional);
+    }
+}
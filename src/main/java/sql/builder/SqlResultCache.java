@@ -0,0 +1,288 @@
+package sql.builder;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+public final class SqlResultCache {
+    public static final int DEFAULT_MAX_ENTRIES = 1024;
+    public static final long DEFAULT_MAX_BYTES = 64L << 20;
+    public static final Duration DEFAULT_TTL = Duration.ofSeconds(30);
+    private static final long OBJECT_BYTES = 16;
+    private static final long REFERENCE_BYTES = 8;
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final long ttlNanos;
+    private final ToLongFunction<Object> weigher;
+    private final LongSupplier clock;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Set<Key>> keysByTable = new HashMap<>();
+    private long bytes;
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+
+    public SqlResultCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES, DEFAULT_TTL);
+    }
+
+    public SqlResultCache(int maxEntries, long maxBytes, Duration ttl) {
+        this(maxEntries, maxBytes, ttl, SqlResultCache::estimateBytes);
+    }
+
+    public SqlResultCache(int maxEntries, long maxBytes, Duration ttl, ToLongFunction<Object> weigher) {
+        this(maxEntries, maxBytes, ttl, weigher, System::nanoTime);
+    }
+
+    SqlResultCache(int maxEntries, long maxBytes, Duration ttl, ToLongFunction<Object> weigher, LongSupplier clock) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        }
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("maxBytes must be positive: " + maxBytes);
+        }
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("ttl must be positive: " + ttl);
+        }
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.ttlNanos = ttl.toNanos();
+        this.weigher = weigher;
+        this.clock = clock;
+    }
+
+    <T> T query(SqlExecutor executor, Sql sql, ResultSetHandler<T> handler) throws SQLException {
+        Set<String> tables = sql.getTables();
+        if (tables.isEmpty()) {
+            return executor.execute(sql, handler);
+        }
+        SqlRenderer rendered = sql.renderPositional();
+        Key key = new Key(sql.fingerprint(), rendered.getSql(), values(rendered.placeholders()), handler);
+        long loadGeneration;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (null != entry) {
+                if (clock.getAsLong() - entry.created < ttlNanos) {
+                    hits++;
+                    @SuppressWarnings("unchecked")
+                    T value = (T) entry.value;
+                    return value;
+                }
+                remove(key);
+                expirations++;
+            }
+            misses++;
+            loadGeneration = generation;
+        }
+        T value = executor.execute(sql, handler);
+        put(key, value, tables, loadGeneration);
+        return value;
+    }
+
+    private static Object[] values(SqlParameter[] placeholders) {
+        Object[] values = new Object[placeholders.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = placeholders[i].getValue();
+        }
+        return values;
+    }
+
+    private synchronized void put(Key key, Object value, Set<String> tables, long loadGeneration) {
+        if (loadGeneration != generation) {
+            return;
+        }
+        long size = weigher.applyAsLong(value);
+        if (size > maxBytes) {
+            return;
+        }
+        remove(key);
+        entries.put(key, new Entry(value, size, clock.getAsLong(), tables));
+        bytes += size;
+        for (String table : tables) {
+            keysByTable.computeIfAbsent(table, t -> new HashSet<>()).add(key);
+        }
+        evict();
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxEntries || bytes > maxBytes) {
+            Map.Entry<Key, Entry> evicted = eldest.next();
+            eldest.remove();
+            unlink(evicted.getKey(), evicted.getValue());
+            evictions++;
+        }
+    }
+
+    private void remove(Key key) {
+        Entry removed = entries.remove(key);
+        if (null != removed) {
+            unlink(key, removed);
+        }
+    }
+
+    private void unlink(Key key, Entry entry) {
+        bytes -= entry.size;
+        for (String table : entry.tables) {
+            Set<Key> keys = keysByTable.get(table);
+            if (null != keys && keys.remove(key) && keys.isEmpty()) {
+                keysByTable.remove(table);
+            }
+        }
+    }
+
+    public synchronized void invalidate(String table) {
+        generation++;
+        Set<Key> keys = keysByTable.remove(SqlTables.normalize(table));
+        if (null == keys) {
+            return;
+        }
+        for (Key key : keys.toArray(new Key[0])) {
+            if (entries.containsKey(key)) {
+                remove(key);
+                invalidations++;
+            }
+        }
+    }
+
+    public synchronized void invalidate(Collection<String> tables) {
+        for (String table : tables) {
+            invalidate(table);
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        invalidations += entries.size();
+        entries.clear();
+        keysByTable.clear();
+        bytes = 0;
+    }
+
+    static long estimateBytes(Object value) {
+        if (null == value) {
+            return 0;
+        }
+        if (value instanceof CharSequence) {
+            return OBJECT_BYTES + 2L * ((CharSequence) value).length();
+        }
+        if (value instanceof Collection) {
+            long size = OBJECT_BYTES;
+            for (Object element : (Collection<?>) value) {
+                size += REFERENCE_BYTES + estimateBytes(element);
+            }
+            return size;
+        }
+        if (value instanceof Map) {
+            long size = OBJECT_BYTES;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                size += OBJECT_BYTES + estimateBytes(entry.getKey()) + estimateBytes(entry.getValue());
+            }
+            return size;
+        }
+        if (value instanceof Object[]) {
+            long size = OBJECT_BYTES;
+            for (Object element : (Object[]) value) {
+                size += REFERENCE_BYTES + estimateBytes(element);
+            }
+            return size;
+        }
+        return OBJECT_BYTES;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized double getHitRatio() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized long getExpirations() {
+        return expirations;
+    }
+
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    public synchronized long getEstimatedBytes() {
+        return bytes;
+    }
+
+    private static final class Key {
+        private final long fingerprint;
+        private final String sql;
+        private final Object[] values;
+        private final ResultSetHandler<?> handler;
+        private final int hash;
+
+        private Key(long fingerprint, String sql, Object[] values, ResultSetHandler<?> handler) {
+            this.fingerprint = fingerprint;
+            this.sql = sql;
+            this.values = values;
+            this.handler = handler;
+            this.hash = 31 * (31 * Long.hashCode(fingerprint) + Arrays.deepHashCode(values)) + handler.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key that = (Key) other;
+            return fingerprint == that.fingerprint
+                    && handler.equals(that.handler)
+                    && sql.equals(that.sql)
+                    && Arrays.deepEquals(values, that.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Entry {
+        private final Object value;
+        private final long size;
+        private final long created;
+        private final Set<String> tables;
+
+        private Entry(Object value, long size, long created, Set<String> tables) {
+            this.value = value;
+            this.size = size;
+            this.created = created;
+            this.tables = tables;
+        }
+    }
+}
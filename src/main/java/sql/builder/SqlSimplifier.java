@@ -0,0 +1,371 @@
+package sql.builder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static sql.builder.SqlHelper.*;
+
+final class SqlSimplifier {
+    private static final Pattern LOGICAL_WORD = Pattern.compile("(?i)\\b(AND|OR)\\b");
+    private static final List<String> TAUTOLOGIES = Arrays.asList("1=1", "0=0", "TRUE");
+    private static final List<String> CONTRADICTIONS = Arrays.asList("1=0", "0=1", "FALSE");
+    private static final Term TRUE_TERM = new Atom(Collections.<Sql>emptyList(), false, false);
+
+    private SqlSimplifier() {
+    }
+
+    static Sql simplify(Sql sql) {
+        List<Sql> items = sql.clauseItems();
+        Sql result = new Sql(null, sql.getConfig());
+        int index = 0;
+        while (index < items.size()) {
+            Sql item = items.get(index++);
+            SqlClause clause = item.clause();
+            if (clause != SqlClause.WHERE && clause != SqlClause.HAVING) {
+                result.append(item);
+                continue;
+            }
+            int end = index;
+            while (end < items.size() && null == items.get(end).clause()) {
+                end++;
+            }
+            Term predicate = parse(items.subList(index, end));
+            index = end;
+            if (predicate != TRUE_TERM) {
+                result.append(item);
+                append(predicate, result);
+            }
+        }
+        return result;
+    }
+
+    private static Term parse(List<Sql> nodes) {
+        Deque<Parse> frames = new ArrayDeque<>();
+        frames.push(new Parse(flatten(nodes)));
+        Term inner = null;
+        while (true) {
+            Parse frame = frames.peek();
+            if (null != inner) {
+                frame.resume(inner);
+                inner = null;
+            }
+            Parse child = frame.next();
+            if (null != child) {
+                frames.push(child);
+            } else {
+                frames.pop();
+                if (frames.isEmpty()) {
+                    return frame.result;
+                }
+                inner = frame.result;
+            }
+        }
+    }
+
+    private static List<Sql> flatten(List<Sql> nodes) {
+        List<Sql> flat = new ArrayList<>();
+        Deque<Sql> pending = new ArrayDeque<>();
+        for (int i = nodes.size() - 1; i >= 0; i--) {
+            pending.push(nodes.get(i));
+        }
+        while (!pending.isEmpty()) {
+            Sql node = pending.pop();
+            if (node instanceof SqlTokens && ((SqlTokens) node).separator().operator() != null
+                    && ((SqlTokens) node).separator().operator().isLogical()) {
+                SqlTokens tokens = (SqlTokens) node;
+                for (int i = 0; i < tokens.tokenCount(); i++) {
+                    if (i > 0) {
+                        flat.add(tokens.separator());
+                    }
+                    flat.add(immutableSql(tokens.token(i)));
+                }
+            } else if (node instanceof SqlTokens || node.isLeaf() || node.isBrackets()) {
+                flat.add(node);
+            } else {
+                if (null != node.getContent()) {
+                    flat.add(immutableSql(node.getContent()));
+                }
+                for (int i = node.childCount() - 1; i >= 0; i--) {
+                    pending.push(node.child(i));
+                }
+            }
+        }
+        return flat;
+    }
+
+    private static boolean addTerm(List<Sql> nodes, List<Term> terms) {
+        if (containsLogicalWord(nodes)) {
+            return false;
+        }
+        String text = nodes.size() == 1 && nodes.get(0).isText() ? normalize(nodes.get(0).getContent()) : null;
+        terms.add(TAUTOLOGIES.contains(text) ? TRUE_TERM : new Atom(nodes, CONTRADICTIONS.contains(text), false));
+        return true;
+    }
+
+    private static Term group(SqlOperator operator, List<Term> terms) {
+        Term head = terms.isEmpty() ? null : terms.get(0);
+        boolean extendHead = head instanceof Group && ((Group) head).operator == operator;
+        List<Term> result = extendHead ? ((Group) head).terms : new ArrayList<>(terms.size());
+        Map<Long, List<Term>> seen = extendHead ? ((Group) head).seen : new HashMap<>();
+        long hash = extendHead ? ((Group) head).identityHash : operator.ordinal();
+        Term contradiction = null;
+        for (Term term : extendHead ? terms.subList(1, terms.size()) : terms) {
+            List<Term> members = term instanceof Group && ((Group) term).operator == operator
+                    ? ((Group) term).terms : Collections.singletonList(term);
+            for (Term member : members) {
+                if (member == TRUE_TERM) {
+                    if (operator == SqlOperator.OR) {
+                        return TRUE_TERM;
+                    }
+                } else if (member.isFalse()) {
+                    if (operator == SqlOperator.AND) {
+                        return member;
+                    }
+                    contradiction = member;
+                } else if (add(seen, member)) {
+                    result.add(member);
+                    hash = SqlFingerprint.mix(hash * 31 + member.identityHash());
+                }
+            }
+        }
+        if (result.isEmpty()) {
+            return null != contradiction ? contradiction : TRUE_TERM;
+        }
+        return result.size() == 1 ? result.get(0) : new Group(operator, result, seen, hash);
+    }
+
+    private static boolean add(Map<Long, List<Term>> seen, Term term) {
+        List<Term> candidates = seen.computeIfAbsent(term.identityHash(), hash -> new ArrayList<>(1));
+        for (Term existing : candidates) {
+            if (existing.toSql().equals(term.toSql())) {
+                return false;
+            }
+        }
+        candidates.add(term);
+        return true;
+    }
+
+    private static boolean containsLogicalWord(List<Sql> nodes) {
+        boolean[] found = new boolean[1];
+        SqlVisitor visitor = new SqlVisitor() {
+            private int bracketDepth;
+
+            @Override
+            public void enterNode(Sql node) {
+                if (node.isBrackets()) {
+                    bracketDepth++;
+                }
+            }
+
+            @Override
+            public void leaveNode(Sql node) {
+                if (node.isBrackets()) {
+                    bracketDepth--;
+                }
+            }
+
+            @Override
+            public void visitText(String text) {
+                found[0] |= 0 == bracketDepth && LOGICAL_WORD.matcher(text).find();
+            }
+        };
+        for (Sql node : nodes) {
+            node.accept(visitor);
+        }
+        return found[0];
+    }
+
+    private static boolean isBlank(Sql node) {
+        return node.isText() && node.getContent().trim().isEmpty();
+    }
+
+    private static String normalize(String text) {
+        return text.replaceAll("\\s+", "").toUpperCase(Locale.ROOT);
+    }
+
+    private static void append(Term root, Sql target) {
+        if (!(root instanceof Group)) {
+            ((Atom) root).appendTo(target);
+            return;
+        }
+        Deque<Build> builds = new ArrayDeque<>();
+        builds.push(new Build((Group) root, null));
+        while (!builds.isEmpty()) {
+            Build build = builds.peek();
+            List<Term> terms = build.group.terms;
+            if (build.index < terms.size()) {
+                if (build.index > 0) {
+                    build.sql.append(build.group.operator == SqlOperator.AND ? AND : OR);
+                }
+                Term term = terms.get(build.index++);
+                if (term instanceof Group) {
+                    builds.push(new Build((Group) term, build.group.operator));
+                } else {
+                    ((Atom) term).appendTo(build.sql);
+                }
+                continue;
+            }
+            builds.pop();
+            Sql built = build.group.operator == SqlOperator.OR && build.parent == SqlOperator.AND
+                    ? brackets(build.sql) : build.sql;
+            (builds.isEmpty() ? target : builds.peek().sql).append(built);
+        }
+    }
+
+    private static final class Parse {
+        private final List<Sql> flat;
+        private final List<Term> disjuncts = new ArrayList<>();
+        private List<Term> conjuncts = new ArrayList<>();
+        private List<Sql> current = new ArrayList<>();
+        private List<Sql> bracketed;
+        private int position = -1;
+        private Term result;
+
+        Parse(List<Sql> flat) {
+            this.flat = flat;
+        }
+
+        Parse next() {
+            if (position < 0) {
+                for (Sql node : flat) {
+                    if (null != node.clause()) {
+                        result = new Atom(flat, false, true);
+                        return null;
+                    }
+                }
+                position = 0;
+            }
+            for (; position <= flat.size(); position++) {
+                Sql node = position < flat.size() ? flat.get(position) : null;
+                SqlOperator operator = null == node ? null : node.operator();
+                if (null == node || operator == SqlOperator.AND || operator == SqlOperator.OR) {
+                    if (null == bracketed) {
+                        if (current.size() == 1 && current.get(0).isBrackets()) {
+                            bracketed = current;
+                            return new Parse(flatten(Collections.singletonList(current.get(0).child(1))));
+                        }
+                        if (!current.isEmpty() && !addTerm(current, conjuncts)) {
+                            result = new Atom(flat, false, true);
+                            return null;
+                        }
+                    }
+                    bracketed = null;
+                    current = new ArrayList<>();
+                    if (operator != SqlOperator.AND) {
+                        disjuncts.add(group(SqlOperator.AND, conjuncts));
+                        conjuncts = new ArrayList<>();
+                    }
+                } else if (!isBlank(node)) {
+                    current.add(node);
+                }
+            }
+            result = group(SqlOperator.OR, disjuncts);
+            return null;
+        }
+
+        void resume(Term inner) {
+            conjuncts.add(inner.isOpaque() ? new Atom(bracketed, false, false) : inner);
+        }
+    }
+
+    private static final class Build {
+        private final Group group;
+        private final SqlOperator parent;
+        private final Sql sql;
+        private int index;
+
+        Build(Group group, SqlOperator parent) {
+            this.group = group;
+            this.parent = parent;
+            this.sql = new Sql(2 * group.terms.size() - 1);
+        }
+    }
+
+    private abstract static class Term {
+        private Sql sql;
+
+        abstract long identityHash();
+
+        boolean isFalse() {
+            return false;
+        }
+
+        boolean isOpaque() {
+            return false;
+        }
+
+        Sql toSql() {
+            if (null == sql) {
+                sql = new Sql();
+                append(this, sql);
+            }
+            return sql;
+        }
+    }
+
+    private static final class Atom extends Term {
+        private final List<Sql> nodes;
+        private final boolean contradiction;
+        private final boolean opaque;
+        private long identityHash;
+        private boolean hashed;
+
+        Atom(List<Sql> nodes, boolean contradiction, boolean opaque) {
+            this.nodes = new ArrayList<>(nodes);
+            this.contradiction = contradiction;
+            this.opaque = opaque;
+        }
+
+        @Override
+        long identityHash() {
+            if (!hashed) {
+                identityHash = toSql().identityHash();
+                hashed = true;
+            }
+            return identityHash;
+        }
+
+        void appendTo(Sql target) {
+            for (Sql node : nodes) {
+                target.append(node);
+            }
+        }
+
+        @Override
+        boolean isFalse() {
+            return contradiction;
+        }
+
+        @Override
+        boolean isOpaque() {
+            return opaque;
+        }
+    }
+
+    private static final class Group extends Term {
+        private final SqlOperator operator;
+        private final List<Term> terms;
+        private final Map<Long, List<Term>> seen;
+        private final long identityHash;
+
+        Group(SqlOperator operator, List<Term> terms, Map<Long, List<Term>> seen, long identityHash) {
+            this.operator = operator;
+            this.terms = terms;
+            this.seen = seen;
+            this.identityHash = identityHash;
+        }
+
+        @Override
+        long identityHash() {
+            return identityHash;
+        }
+    }
+}
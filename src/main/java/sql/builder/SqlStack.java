@@ -0,0 +1,58 @@
+package sql.builder;
+
+import java.util.Arrays;
+
+final class SqlStack {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private Sql[] nodes = new Sql[DEFAULT_CAPACITY];
+    private int[] positions = new int[DEFAULT_CAPACITY];
+    private int depth;
+
+    void push(Sql sql) {
+        if (depth == nodes.length) {
+            nodes = Arrays.copyOf(nodes, depth << 1);
+            positions = Arrays.copyOf(positions, depth << 1);
+        }
+        nodes[depth] = sql;
+        positions[depth] = 0;
+        depth++;
+    }
+
+    Sql top() {
+        return nodes[depth - 1];
+    }
+
+    boolean isEmpty() {
+        return depth == 0;
+    }
+
+    Sql nextChild() {
+        Sql top = nodes[depth - 1];
+        int position = positions[depth - 1];
+        if (position < top.childCount()) {
+            positions[depth - 1] = position + 1;
+            return top.child(position);
+        }
+        return null;
+    }
+
+    Sql pop() {
+        Sql top = nodes[--depth];
+        nodes[depth] = null;
+        return top;
+    }
+
+    Sql next() {
+        while (depth > 0) {
+            Sql top = nodes[depth - 1];
+            int position = positions[depth - 1];
+            if (position < top.childCount()) {
+                positions[depth - 1] = position + 1;
+                return top.child(position);
+            }
+            nodes[--depth] = null;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,79 @@
+package sql.builder;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+final class SqlTables implements SqlVisitor {
+    private final Set<String> tables = new LinkedHashSet<>();
+    private final Deque<Boolean> outerTableLists = new ArrayDeque<>();
+    private boolean inTableList;
+    private boolean tableExpected;
+
+    private SqlTables() {
+    }
+
+    static Set<String> of(Sql sql) {
+        SqlTables visitor = new SqlTables();
+        sql.accept(visitor);
+        return Collections.unmodifiableSet(visitor.tables);
+    }
+
+    static String normalize(String table) {
+        return table.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public void enterNode(Sql node) {
+        if (node.opensBracket()) {
+            outerTableLists.push(inTableList);
+            inTableList = false;
+            tableExpected = false;
+        }
+    }
+
+    @Override
+    public void leaveNode(Sql node) {
+        if (node.opensBracket()) {
+            inTableList = outerTableLists.pop();
+            tableExpected = false;
+        }
+    }
+
+    @Override
+    public void visitClause(SqlClause clause, String keyword) {
+        inTableList = clause == SqlClause.FROM || clause == SqlClause.INSERT_INTO || clause.isJoin();
+        tableExpected = inTableList;
+    }
+
+    @Override
+    public void visitOperator(SqlOperator operator, String keyword) {
+        tableExpected = inTableList && operator == SqlOperator.COMMA;
+        if (operator != SqlOperator.COMMA) {
+            inTableList = false;
+        }
+    }
+
+    @Override
+    public void visitText(String text) {
+        if (!tableExpected) {
+            return;
+        }
+        tableExpected = false;
+        for (String item : text.split(",")) {
+            String[] words = item.trim().split("\\s+");
+            if (!words[0].isEmpty() && !words[0].startsWith("(")) {
+                tables.add(normalize(words[0]));
+            }
+        }
+    }
+
+    @Override
+    public void visitParameter(String name, Object value) {
+        tableExpected = false;
+        inTableList = false;
+    }
+}
@@ -0,0 +1,58 @@
+package sql.builder;
+
+final class SqlTokens extends Sql {
+    private final Sql separator;
+    private final String[] tokens;
+    private SqlFingerprint tokensFingerprint;
+
+    SqlTokens(Sql separator, String[] tokens) {
+        this.separator = separator;
+        this.tokens = tokens;
+    }
+
+    Sql separator() {
+        return separator;
+    }
+
+    int tokenCount() {
+        return tokens.length;
+    }
+
+    String[] tokens() {
+        return tokens;
+    }
+
+    String token(int index) {
+        return tokens[index];
+    }
+
+    @Override
+    void renderContent(SqlRenderer renderer) {
+        for (int i = 0; i < tokens.length; i++) {
+            if (i > 0) {
+                separator.renderContent(renderer);
+            }
+            renderer.append(tokens[i]);
+        }
+    }
+
+    @Override
+    void acceptContent(SqlVisitor visitor) {
+        for (int i = 0; i < tokens.length; i++) {
+            if (i > 0) {
+                separator.acceptContent(visitor);
+            }
+            visitor.visitText(tokens[i]);
+        }
+    }
+
+    @Override
+    SqlFingerprint contentFingerprint() {
+        SqlFingerprint result = tokensFingerprint;
+        if (null == result) {
+            result = SqlFingerprint.ofTokens(separator.getContent(), tokens);
+            tokensFingerprint = result;
+        }
+        return result;
+    }
+}
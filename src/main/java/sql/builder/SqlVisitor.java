@@ -0,0 +1,22 @@
+package sql.builder;
+
+public interface SqlVisitor {
+
+    default void enterNode(Sql node) {
+    }
+
+    default void leaveNode(Sql node) {
+    }
+
+    default void visitClause(SqlClause clause, String keyword) {
+    }
+
+    default void visitOperator(SqlOperator operator, String keyword) {
+    }
+
+    default void visitText(String text) {
+    }
+
+    default void visitParameter(String name, Object value) {
+    }
+}
@@ -0,0 +1,103 @@
+package sql.builder;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static sql.builder.SqlHelper.*;
+
+class PreparedStatementBinderTest {
+
+    @Test
+    void bindUsesTypedSetters() throws Exception {
+        LocalDateTime created = LocalDateTime.of(2020, 1, 2, 3, 4, 5);
+        Sql sql = new Sql().select("c1")
+                .from("t1")
+                .where(sql("c1").equal(param("i", 1)))
+                .and(sql("c2").equal(param("l", 2L)))
+                .and(sql("c3").equal(param("s", "x")))
+                .and(sql("c4").equal(param("t", created)))
+                .and(sql("c5").equal(param("d", BigDecimal.ONE)))
+                .and(sql("c6").equal(param("n", null)))
+                .and(sql("c7").equal(param("o", Arrays.asList(1, 2))))
+                .or(sql("c8").equal(param("i", 1)));
+        List<String> calls = new ArrayList<>();
+
+        PreparedStatementBinder.bind(recordingStatement(calls), sql.buildPositional());
+
+        assertThat(calls).containsExactly(
+                "setInt(1, 1)",
+                "setLong(2, 2)",
+                "setString(3, x)",
+                "setTimestamp(4, " + Timestamp.valueOf(created) + ")",
+                "setBigDecimal(5, 1)",
+                "setNull(6, " + Types.NULL + ")",
+                "setObject(7, [1, 2])",
+                "setInt(8, 1)");
+    }
+
+    @Test
+    void narrowPrimitivesKeepBoxedBinding() throws Exception {
+        Sql sql = new Sql().select("c1")
+                .from("t1")
+                .where(sql("c1").equal(param("c", 'A')))
+                .and(sql("c2").equal(param("f", 0.5f)))
+                .and(sql("c3").equal(param("s", (short) 2)))
+                .and(sql("c4").equal(param("b", (byte) 3)));
+        List<String> calls = new ArrayList<>();
+
+        PreparedStatementBinder.bind(recordingStatement(calls), sql.placeholders());
+
+        assertThat(sql.getParameters()).containsEntry("c", 'A').containsEntry("f", 0.5f)
+                .containsEntry("s", (short) 2).containsEntry("b", (byte) 3);
+        assertThat(calls).containsExactly(
+                "setObject(1, A)",
+                "setFloat(2, 0.5)",
+                "setShort(3, 2)",
+                "setObject(4, 3)");
+    }
+
+    @Test
+    void bindPrimitiveParameters() throws Exception {
+        Sql sql = new Sql().select("c1")
+                .from("t1")
+                .where(sql("c1").equal(param("i", 1)))
+                .and(sql("c2").equal(param("l", 2L)))
+                .and(sql("c3").equal(param("d", 0.5)))
+                .and(sql("c4").equal(param("o", (Object) 3)))
+                .offset(20)
+                .limit(10);
+        List<String> calls = new ArrayList<>();
+
+        PreparedStatementBinder.bind(recordingStatement(calls), sql.placeholders());
+
+        assertThat(calls).containsExactly(
+                "setInt(1, 1)",
+                "setLong(2, 2)",
+                "setDouble(3, 0.5)",
+                "setInt(4, 3)",
+                "setInt(5, 20)",
+                "setInt(6, 10)");
+        assertThat(sql.getParameters()).containsValues(1, 2L, 0.5, 3, 20, 10);
+        assertThat(sql.placeholders()[4]).isInstanceOf(SqlParameter.OfInt.class);
+    }
+
+    static PreparedStatement recordingStatement(List<String> calls) {
+        return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    calls.add(method.getName() + "(" + args[0] + ", " + args[1] + ")");
+                    return null;
+                });
+    }
+}
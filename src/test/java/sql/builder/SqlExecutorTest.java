@@ -0,0 +1,238 @@
+package sql.builder;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static sql.builder.SqlHelper.*;
+
+class SqlExecutorTest {
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE users (id INT PRIMARY KEY, name VARCHAR(50), tenant_id INT)");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void statementsReusedForSameShape() throws SQLException {
+        try (SqlExecutor executor = new SqlExecutor(connection)) {
+            for (int i = 1; i <= 3; i++) {
+                executor.update(new Sql("INSERT INTO users (id, name, tenant_id) VALUES (")
+                        .param("id", i).comma().param("name", "user" + i).comma().param("tenant_id", i % 2)
+                        .append(")"));
+            }
+
+            List<String> names = executor.query(selectUsers(1), SqlExecutorTest::names);
+            List<String> otherNames = executor.query(selectUsers(0), SqlExecutorTest::names);
+
+            assertThat(names).containsExactly("user1", "user3");
+            assertThat(otherNames).containsExactly("user2");
+            assertEquals(2, executor.getMisses());
+            assertEquals(3, executor.getHits());
+            assertEquals(0, executor.getEvictions());
+            assertEquals(2, executor.getCachedStatementCount());
+        }
+    }
+
+    @Test
+    void leastRecentlyUsedStatementEvicted() throws SQLException {
+        try (SqlExecutor executor = new SqlExecutor(connection, 2)) {
+            PreparedStatement first = executor.prepare(select("id").from("users"));
+            executor.prepare(select("name").from("users"));
+            executor.prepare(select("id").from("users"));
+            executor.prepare(select("tenant_id").from("users"));
+
+            assertEquals(1, executor.getEvictions());
+            assertEquals(2, executor.getCachedStatementCount());
+            assertThat(first.isClosed()).isFalse();
+            assertThat(executor.prepare(select("id").from("users"))).isSameAs(first);
+
+            executor.prepare(select("name").from("users"));
+            assertEquals(4, executor.getMisses());
+        }
+    }
+
+    @Test
+    void closeReleasesCachedStatements() throws SQLException {
+        PreparedStatement statement;
+        try (SqlExecutor executor = new SqlExecutor(connection)) {
+            statement = executor.prepare(select("id").from("users"));
+        }
+
+        assertThat(statement.isClosed()).isTrue();
+    }
+
+    @Test
+    void batchWithValueMaps() throws SQLException {
+        Sql insert = new Sql("INSERT INTO users (id, name, tenant_id) VALUES (")
+                .param("id", 0).comma().param("name", "").comma().param("tenant_id", 7)
+                .append(")");
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < 2_500; i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("id", i);
+            row.put("name", "user" + i);
+            rows.add(row);
+        }
+
+        try (SqlExecutor executor = new SqlExecutor(connection)) {
+            BatchResult result = executor.executeBatch(insert, rows, 1_000);
+
+            assertEquals(2_500, result.getRowCount());
+            assertEquals(3, result.getBatchCount());
+            assertEquals(2_500, result.getUpdateCounts().length);
+            assertEquals(2_500, result.getTotalUpdateCount());
+            assertEquals(1, executor.getMisses());
+            int tenantRows = executor.query(select("COUNT(*)").from("users").where("tenant_id = 7"),
+                    resultSet -> resultSet.next() ? resultSet.getInt(1) : -1);
+            assertEquals(2_500, tenantRows);
+        }
+    }
+
+    @Test
+    void batchWithValueArrays() throws SQLException {
+        Sql insert = new Sql("INSERT INTO users (id, name, tenant_id) VALUES (")
+                .param("id", 0).comma().param("name", "").comma().param("id", 0)
+                .append(")");
+
+        try (SqlExecutor executor = new SqlExecutor(connection)) {
+            BatchResult result = executor.executeBatchValues(insert,
+                    Arrays.asList(new Object[]{1, "a"}, new Object[]{2, "b"}, new Object[]{3, "c"}), 2);
+
+            assertEquals(2, result.getBatchCount());
+            assertEquals(3, result.getTotalUpdateCount());
+            List<String> names = executor.query(select("name").from("users").where("id = tenant_id").orderBy("id"),
+                    SqlExecutorTest::names);
+            assertThat(names).containsExactly("a", "b", "c");
+        }
+    }
+
+    @Test
+    void failedBatchDoesNotLeakRows() throws SQLException {
+        Sql insert = new Sql("INSERT INTO users (id, name, tenant_id) VALUES (")
+                .param("id", 0).comma().param("name", "").comma().param("id", 0)
+                .append(")");
+
+        try (SqlExecutor executor = new SqlExecutor(connection)) {
+            assertThrows(IllegalArgumentException.class, () -> executor.executeBatchValues(insert,
+                    Arrays.asList(new Object[]{1, "a"}, new Object[]{2, "b"}, new Object[]{3})));
+            assertThrows(SQLException.class, () -> executor.executeBatchValues(insert,
+                    Arrays.asList(new Object[]{5, "e"}, new Object[]{5, "f"})));
+            BatchResult result = executor.executeBatchValues(insert,
+                    Collections.singletonList(new Object[]{4, "d"}));
+
+            assertThat(result.getUpdateCounts()).containsExactly(1);
+            assertEquals(1, executor.getMisses());
+            List<String> names = executor.query(select("name").from("users").where("id = tenant_id").orderBy("id"),
+                    SqlExecutorTest::names);
+            assertThat(names).doesNotContain("a", "b").contains("d");
+        }
+    }
+
+    @Test
+    void largeInListStrategies() throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        try (SqlExecutor executor = new SqlExecutor(connection)) {
+            for (int i = 1; i <= 5; i++) {
+                executor.update(new Sql("INSERT INTO users (id, name, tenant_id) VALUES (")
+                        .param("id", i).comma().param("name", "user" + i).comma().param("tenant_id", 1)
+                        .append(")"));
+                ids.add(i);
+            }
+            ids.remove(Integer.valueOf(2));
+
+            for (SqlInStrategy strategy : SqlInStrategy.values()) {
+                SqlConfig config = SqlConfig.DEFAULT.withInStrategy(strategy, 2);
+                Sql sql = new Sql(null, config).select("name").from("users").where("tenant_id = 1").and().in("id", ids).orderBy("id");
+
+                assertThat(executor.query(sql, SqlExecutorTest::names))
+                        .containsExactly("user1", "user3", "user4", "user5");
+            }
+        }
+    }
+
+    @Test
+    void fingerprintCollisionPreparesNewStatement() throws SQLException {
+        Sql first = thueMorseLiteral(false);
+        Sql second = thueMorseLiteral(true);
+        assertEquals(first.fingerprint(), second.fingerprint());
+        assertThat(first.toString()).isNotEqualTo(second.toString());
+
+        try (SqlExecutor executor = new SqlExecutor(connection)) {
+            String firstValue = executor.query(first, SqlExecutorTest::firstString);
+            String secondValue = executor.query(second, SqlExecutorTest::firstString);
+
+            assertThat(firstValue).startsWith("abba");
+            assertThat(secondValue).startsWith("baab");
+            assertEquals(2, executor.getMisses());
+            assertEquals(0, executor.getHits());
+        }
+    }
+
+    @Test
+    void chunkedMultiRowInsert() throws SQLException {
+        InsertSql insert = insertInto("users", "id", "name", "tenant_id").maxParameters(2100);
+        for (int i = 0; i < 10_000; i++) {
+            insert.values(i, "user" + i, i % 3);
+        }
+
+        try (SqlExecutor executor = new SqlExecutor(connection)) {
+            assertEquals(10_000, executor.update(insert));
+            assertEquals(15, executor.getMisses() + executor.getHits());
+            int count = executor.query(select("COUNT(*)").from("users"),
+                    resultSet -> resultSet.next() ? resultSet.getInt(1) : -1);
+            assertEquals(10_000, count);
+        }
+    }
+
+    static Sql thueMorseLiteral(boolean complement) {
+        Sql sql = new Sql("SELECT '");
+        for (int i = 0; i < 2048; i++) {
+            sql.append((Integer.bitCount(i) % 2 == 1) != complement ? "b" : "a");
+        }
+        return sql.append("'");
+    }
+
+    private static String firstString(ResultSet resultSet) throws SQLException {
+        return resultSet.next() ? resultSet.getString(1) : null;
+    }
+
+    private static Sql selectUsers(int tenantId) {
+        return select("name").from("users")
+                .where(sql("tenant_id").equal(param("tenant_id", tenantId)))
+                .orderBy("id");
+    }
+
+    private static List<String> names(ResultSet resultSet) throws SQLException {
+        List<String> names = new ArrayList<>();
+        while (resultSet.next()) {
+            names.add(resultSet.getString("name"));
+        }
+        return names;
+    }
+}
@@ -0,0 +1,86 @@
+package sql.builder;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static sql.builder.SqlHelper.*;
+
+class SqlListenerTest {
+
+    @Test
+    void listenerReceivesRenderMetrics() throws Exception {
+        List<String> calls = new ArrayList<>();
+        SqlConfig config = SqlConfig.DEFAULT.withListener((sql, nodeCount, length, parameterCount, durationNanos) ->
+                calls.add(nodeCount + " " + length + " " + parameterCount + " " + (durationNanos >= 0)));
+        Sql sql = lookup(config, 1);
+
+        String text = sql.toString();
+        sql.build();
+        sql.renderTo(new StringWriter());
+
+        assertThat(calls).hasSize(3).allMatch(call -> call.endsWith(" " + text.length() + " 1 true")
+                && Integer.parseInt(call.substring(0, call.indexOf(' '))) > 0);
+        assertThat(lookup(SqlConfig.DEFAULT, 1).getConfig().getListener()).isNull();
+    }
+
+    @Test
+    void histogramsPerFingerprint() {
+        HistogramSqlListener listener = new HistogramSqlListener();
+        SqlConfig config = SqlConfig.DEFAULT.withListener(listener);
+
+        for (int i = 0; i < 10; i++) {
+            lookup(config, i).build();
+        }
+        new Sql(null, config).select("c2").from("t2").build();
+
+        List<HistogramSqlListener.Histogram> histograms = listener.getHistograms();
+        HistogramSqlListener.Histogram lookups = listener.getHistogram(lookup(config, 0).fingerprint());
+        assertThat(histograms).hasSize(2).contains(lookups);
+        assertEquals(10, lookups.getCount());
+        assertThat(lookups.getMaxNanos()).isGreaterThan(0);
+        assertThat(lookups.getPercentileNanos(50)).isLessThanOrEqualTo(lookups.getPercentileNanos(100))
+                .isLessThanOrEqualTo(lookups.getMaxNanos());
+        assertEquals(lookup(config, 0).toString().length(), lookups.getMeanLength());
+
+        listener.reset();
+        assertThat(listener.getHistograms()).isEmpty();
+    }
+
+    @Test
+    void jfrEvents() throws Exception {
+        SqlConfig config = SqlConfig.DEFAULT.withListener(new JfrSqlListener());
+        Path file = Files.createTempFile("sql-builder", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("sql.builder.Render").withoutThreshold();
+            recording.start();
+            lookup(config, 1).build();
+            lookup(config, 2).build();
+            recording.stop();
+            recording.dump(file);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            assertThat(events).hasSize(2).allSatisfy(event -> {
+                assertEquals(lookup(config, 0).fingerprint(), event.getLong("fingerprint"));
+                assertEquals(1, event.getInt("parameterCount"));
+                assertThat(event.getLong("length")).isGreaterThan(0);
+                assertThat(event.getDuration().toNanos()).isPositive();
+            });
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static Sql lookup(SqlConfig config, int id) {
+        return new Sql(null, config).select("c1").from("t1").where(sql("c1").equal(param("id", id)));
+    }
+}
@@ -0,0 +1,231 @@
+package sql.builder;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static sql.builder.SqlHelper.*;
+
+class SqlResultCacheTest {
+    private static final ResultSetHandler<List<String>> NAMES = SqlResultCacheTest::names;
+    private final AtomicLong clock = new AtomicLong();
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE users (id INT PRIMARY KEY, name VARCHAR(50), tenant_id INT)");
+            statement.execute("CREATE TABLE tenants (id INT PRIMARY KEY, name VARCHAR(50))");
+            statement.execute("INSERT INTO users VALUES (1, 'user1', 1), (2, 'user2', 2), (3, 'user3', 1)");
+            statement.execute("INSERT INTO tenants VALUES (1, 'tenant1'), (2, 'tenant2')");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void cachesByFingerprintAndParameters() throws SQLException {
+        SqlResultCache cache = cache(16, Long.MAX_VALUE, Duration.ofSeconds(10));
+        try (SqlExecutor executor = new SqlExecutor(connection, cache)) {
+            List<String> first = executor.query(selectUsers(1), NAMES);
+            List<String> second = executor.query(selectUsers(1), NAMES);
+            List<String> other = executor.query(selectUsers(2), NAMES);
+
+            assertThat(first).containsExactly("user1", "user3");
+            assertSame(first, second);
+            assertThat(other).containsExactly("user2");
+            assertEquals(1, cache.getHits());
+            assertEquals(2, cache.getMisses());
+            assertEquals(1.0 / 3, cache.getHitRatio());
+            assertEquals(2, cache.getEntryCount());
+            assertThat(cache.getEstimatedBytes()).isPositive();
+        }
+    }
+
+    @Test
+    void expiresAfterTtl() throws SQLException {
+        SqlResultCache cache = cache(16, Long.MAX_VALUE, Duration.ofSeconds(10));
+        try (SqlExecutor executor = new SqlExecutor(connection, cache)) {
+            List<String> first = executor.query(selectUsers(1), NAMES);
+            clock.addAndGet(Duration.ofSeconds(9).toNanos());
+            assertSame(first, executor.query(selectUsers(1), NAMES));
+            clock.addAndGet(Duration.ofSeconds(1).toNanos());
+
+            assertThat(executor.query(selectUsers(1), NAMES)).isNotSameAs(first);
+            assertEquals(1, cache.getExpirations());
+            assertThat(executor.query(selectUsers(1), SqlResultCacheTest::names)).containsExactly("user1", "user3");
+            assertEquals(2, cache.getEntryCount());
+        }
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedByCountAndBytes() throws SQLException {
+        SqlResultCache countBound = cache(2, Long.MAX_VALUE, Duration.ofSeconds(10));
+        try (SqlExecutor executor = new SqlExecutor(connection, countBound)) {
+            executor.query(selectUsers(1), NAMES);
+            executor.query(selectUsers(2), NAMES);
+            executor.query(selectUsers(1), NAMES);
+            executor.query(selectUsers(3), NAMES);
+            executor.query(selectUsers(1), NAMES);
+
+            assertEquals(1, countBound.getEvictions());
+            assertEquals(2, countBound.getHits());
+            assertEquals(2, countBound.getEntryCount());
+        }
+
+        long oneUser = SqlResultCache.estimateBytes(list("user2"));
+        SqlResultCache byteBound = cache(16, oneUser, Duration.ofSeconds(10));
+        try (SqlExecutor executor = new SqlExecutor(connection, byteBound)) {
+            executor.query(selectUsers(1), NAMES);
+            executor.query(selectUsers(2), NAMES);
+            executor.query(selectUsers(3), NAMES);
+
+            assertEquals(1, byteBound.getEntryCount());
+            assertEquals(1, byteBound.getEvictions());
+            assertThat(byteBound.getEstimatedBytes()).isLessThanOrEqualTo(oneUser);
+        }
+    }
+
+    @Test
+    void writesInvalidateReadTables() throws SQLException {
+        SqlResultCache cache = cache(16, Long.MAX_VALUE, Duration.ofSeconds(10));
+        try (SqlExecutor executor = new SqlExecutor(connection, cache)) {
+            Sql joined = select("t.name").from("users u").join("tenants t").on("t.id = u.tenant_id")
+                    .where(sql("u.id").equal(param("id", 2)));
+            Sql tenants = select("name").from("tenants").orderBy("id");
+            executor.query(selectUsers(1), NAMES);
+            executor.query(joined, NAMES);
+            executor.query(tenants, NAMES);
+
+            executor.update(insertInto("users", "id", "name", "tenant_id").values(4, "user4", 1));
+
+            assertEquals(2, cache.getInvalidations());
+            assertEquals(1, cache.getEntryCount());
+            assertThat(executor.query(selectUsers(1), NAMES))
+                    .containsExactly("user1", "user3", "user4");
+            executor.query(tenants, NAMES);
+            assertEquals(1, cache.getHits());
+
+            cache.invalidate("TENANTS");
+            executor.update(new Sql("DELETE FROM users WHERE id = 4"));
+
+            assertEquals(0, cache.getEntryCount());
+            assertEquals(4, cache.getInvalidations());
+        }
+    }
+
+    @Test
+    void batchWritesInvalidateReadTables() throws SQLException {
+        SqlResultCache cache = cache(16, Long.MAX_VALUE, Duration.ofSeconds(10));
+        Sql count = select("COUNT(*)").from("users");
+        Sql tenants = select("name").from("tenants").orderBy("id");
+        ResultSetHandler<Integer> counter = resultSet -> resultSet.next() ? resultSet.getInt(1) : 0;
+        try (SqlExecutor executor = new SqlExecutor(connection, cache)) {
+            assertEquals(3, executor.query(count, counter));
+            executor.query(tenants, NAMES);
+
+            executor.executeBatchValues(SqlHelper.insertInto("users", "id", "name", "tenant_id").values(0, "", 0)
+                    .toStatements().get(0), Arrays.asList(new Object[]{4, "user4", 1}, new Object[]{5, "user5", 2}));
+
+            assertEquals(5, executor.query(count, counter));
+            executor.query(tenants, NAMES);
+            assertEquals(1, cache.getHits());
+
+            executor.executeBatchValues(new Sql("INSERT INTO tenants VALUES (").param("id", 0).comma()
+                    .param("name", "").append(")"), Collections.singletonList(new Object[]{3, "tenant3"}));
+
+            assertThat(executor.query(tenants, NAMES)).containsExactly("tenant1", "tenant2", "tenant3");
+            assertEquals(5, executor.query(count, counter));
+            assertEquals(1, cache.getHits());
+        }
+    }
+
+    @Test
+    void fingerprintCollisionMissesCache() throws SQLException {
+        Sql first = thueMorseName(false);
+        Sql second = thueMorseName(true);
+        assertEquals(first.fingerprint(), second.fingerprint());
+
+        SqlResultCache cache = cache(16, Long.MAX_VALUE, Duration.ofSeconds(10));
+        try (SqlExecutor executor = new SqlExecutor(connection, cache)) {
+            assertThat(executor.query(first, NAMES).get(0)).startsWith("abba");
+            assertThat(executor.query(second, NAMES).get(0)).startsWith("baab");
+            assertEquals(0, cache.getHits());
+            assertEquals(2, cache.getEntryCount());
+        }
+    }
+
+    @Test
+    void readsWithUnknownTablesBypassCache() throws SQLException {
+        SqlResultCache cache = cache(16, Long.MAX_VALUE, Duration.ofSeconds(10));
+        Sql count = select("COUNT(*)").from(brackets("SELECT id FROM users")).append(" counted");
+        ResultSetHandler<Integer> counter = resultSet -> resultSet.next() ? resultSet.getInt(1) : 0;
+        try (SqlExecutor executor = new SqlExecutor(connection, cache)) {
+            assertEquals(3, executor.query(count, counter));
+            executor.update(SqlHelper.insertInto("users", "id", "name", "tenant_id").values(4, "user4", 1));
+
+            assertEquals(4, executor.query(count, counter));
+            assertEquals(0, cache.getEntryCount());
+            assertEquals(0, cache.getHits() + cache.getMisses());
+        }
+    }
+
+    @Test
+    void rejectsInvalidBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new SqlResultCache(0, 1, Duration.ofSeconds(1)));
+        assertThrows(IllegalArgumentException.class, () -> new SqlResultCache(1, 0, Duration.ofSeconds(1)));
+        assertThrows(IllegalArgumentException.class, () -> new SqlResultCache(1, 1, Duration.ZERO));
+    }
+
+    private SqlResultCache cache(int maxEntries, long maxBytes, Duration ttl) {
+        return new SqlResultCache(maxEntries, maxBytes, ttl, SqlResultCache::estimateBytes, clock::get);
+    }
+
+    private static Sql selectUsers(int tenantId) {
+        return select("name").from("users").where(sql("tenant_id").equal(param("tenant_id", tenantId))).orderBy("id");
+    }
+
+    private static Sql thueMorseName(boolean complement) {
+        Sql sql = new Sql("SELECT '");
+        for (int i = 0; i < 2048; i++) {
+            sql.append((Integer.bitCount(i) % 2 == 1) != complement ? "b" : "a");
+        }
+        return sql.append("' AS name").from("tenants").where("id = 1");
+    }
+
+    private static List<String> list(String... names) {
+        List<String> result = new ArrayList<>();
+        for (String name : names) {
+            result.add(name);
+        }
+        return result;
+    }
+
+    private static List<String> names(ResultSet resultSet) throws SQLException {
+        List<String> names = new ArrayList<>();
+        while (resultSet.next()) {
+            names.add(resultSet.getString("name"));
+        }
+        return names;
+    }
+}
@@ -2,14 +2,26 @@ package sql.builder;
 
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.IntStream;
 
 import static sql.builder.SqlHelper.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
 
 
 class SqlTest {
@@ -192,6 +204,56 @@ class SqlTest {
         assertSql(expected, sql);
     }
 
+    @Test
+    void inCollectionPaddedToBucket() {
+        Sql sql = new Sql().select("c1")
+                .from("t1")
+                .where(SqlHelper.in("t1.id", Arrays.asList(10, 20, 30)));
+
+        BoundSql boundSql = sql.build();
+
+        assertSql("SELECT c1 FROM t1 WHERE t1.id IN (:t1_id_0, :t1_id_1, :t1_id_2, :t1_id_3)", boundSql.getSql());
+        assertThat(boundSql.getParameterValues()).containsExactly(10, 20, 30, 30);
+    }
+
+    @Test
+    void inCollectionBucketsShareStatementText() {
+        String five = new Sql().in("id", Arrays.asList(1, 2, 3, 4, 5)).toString();
+        String eight = new Sql().in("id", Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8)).toString();
+
+        assertEquals(five, eight);
+        assertEquals("id IN (:id_0)", new Sql().in("id", Collections.singletonList(1)).toString());
+        assertEquals("id IN (NULL)", new Sql().in("id", Collections.emptyList()).toString());
+    }
+
+    @Test
+    void inCollectionsOnSameColumn() {
+        Sql conflicting = new Sql().select("c1").from("t1")
+                .where(SqlHelper.in("id", Arrays.asList(1, 2))).or(SqlHelper.in("id", Arrays.asList(3, 4)));
+        Sql prefixed = new Sql().select("c1").from("t1")
+                .where(SqlHelper.in("id", Arrays.asList(1, 2), "a")).or(SqlHelper.in("id", Arrays.asList(3, 4), "b"));
+
+        assertThrows(IllegalStateException.class, conflicting::getParameters);
+        assertSql("SELECT c1 FROM t1 WHERE id IN (:a_0, :a_1) OR id IN (:b_0, :b_1)", prefixed);
+        assertThat(prefixed.getParameters()).containsOnly(entry("a_0", 1), entry("a_1", 2), entry("b_0", 3),
+                entry("b_1", 4));
+        assertThat(prefixed.buildPositional().getParameterValues()).containsExactly(1, 2, 3, 4);
+        assertThrows(IllegalArgumentException.class, () -> SqlHelper.in("id", Arrays.asList(1), "a b"));
+    }
+
+    @Test
+    void inCollectionSplitByMaxListSize() {
+        Sql sql = new Sql().select("c1")
+                .from("t1")
+                .where("c2 = 1")
+                .and().in("id", Arrays.asList(1, 2, 3, 4, 5, 6), 4);
+
+        BoundSql boundSql = sql.buildPositional();
+
+        assertSql("SELECT c1 FROM t1 WHERE c2 = 1 AND (id IN (?, ?, ?, ?) OR id IN (?, ?))", boundSql.getSql());
+        assertThat(boundSql.getParameterValues()).containsExactly(1, 2, 3, 4, 5, 6);
+    }
+
     @Test
     void exists() {
         Sql sql = new Sql().select("c1")
@@ -226,8 +288,8 @@ class SqlTest {
         String expected = "SELECT c1 FROM t1 OFFSET :p_offset LIMIT :p_limit";
         assertSql(expected, sql);
         Map<String, Object> parameters = sql.getParameters();
-        assertThat(parameters).containsEntry(Sql.offsetParameterName, 20);
-        assertThat(parameters).containsEntry(Sql.limitParameterName, 10);
+        assertThat(parameters).containsEntry(SqlConfig.DEFAULT.getOffsetParameterName(), 20);
+        assertThat(parameters).containsEntry(SqlConfig.DEFAULT.getLimitParameterName(), 10);
     }
 
     @Test
@@ -594,8 +656,828 @@ class SqlTest {
         assertEquals(expected, sql.toString());
     }
 
+    @Test
+    void compile() {
+        Sql sql = new Sql().select("c1")
+                .from("t1")
+                .where(sql("c1").equal(param("id", 1)))
+                .and(sql("c2").equal(param("name", "x")))
+                .or(sql("c3").equal(param("id", 1)));
+
+        CompiledSql compiled = sql.compile();
+
+        assertEquals(sql.toString(), compiled.getSql());
+        assertThat(compiled.getParameterNames()).containsExactly("id", "name");
+        assertEquals(3, compiled.getPlaceholderCount());
+        for (int i = 0; i < compiled.getPlaceholderCount(); i++) {
+            String placeholder = ":" + compiled.getPlaceholderName(i);
+            int position = compiled.getPlaceholderPosition(i);
+            assertEquals(placeholder, compiled.getSql().substring(position, position + placeholder.length()));
+        }
+    }
+
+    @Test
+    void compiledBind() {
+        CompiledSql compiled = new Sql().select("c1")
+                .from("t1")
+                .where(sql("c1").equal(param("id", 1)))
+                .and(sql("c2").equal(param("name", "x")))
+                .or(sql("c3").equal(param("id", 1)))
+                .compile();
+
+        BoundSql defaults = compiled.bind();
+        assertThat(defaults.getParameterValues()).containsExactly(1, "x", 1);
+
+        BoundSql fromMap = compiled.bind(Collections.singletonMap("id", 7));
+        assertEquals(compiled.getSql(), fromMap.getSql());
+        assertThat(fromMap.getParameterNames()).containsExactly("id", "name", "id");
+        assertThat(fromMap.getParameterValues()).containsExactly(7, "x", 7);
+
+        BoundSql fromArray = compiled.bind(8, "y");
+        assertThat(fromArray.getParameterValues()).containsExactly(8, "y", 8);
+        assertThat(fromArray.getParameters()).containsEntry("id", 8).containsEntry("name", "y");
+    }
+
+    @Test
+    void compiledBindWrongArity() {
+        CompiledSql compiled = new Sql().select("c1").from("t1").where(sql("c1").equal(param("id", 1))).compile();
+
+        assertThrows(IllegalArgumentException.class, () -> compiled.bind(1, 2));
+    }
+
+    @Test
+    void build() {
+        Sql sql = new Sql().select("c1")
+                .from("t1")
+                .where(sql("c1").equal(param("id", 1)))
+                .and(sql("c2").equal(param("name", "x")))
+                .offset(20)
+                .limit(10);
+
+        BoundSql boundSql = sql.build();
+
+        assertEquals(sql.toString(), boundSql.getSql());
+        assertThat(boundSql.getParameterNames()).containsExactly("id", "name", "p_offset", "p_limit");
+        assertThat(boundSql.getParameterValues()).containsExactly(1, "x", 20, 10);
+        assertEquals(sql.getParameters(), boundSql.getParameters());
+    }
+
+    @Test
+    void buildSkipsLeadingAndTrailingWhitespace() {
+        Sql sql = new Sql(" \n")
+                .append("")
+                .append("\t a ")
+                .append(new Sql("\n"))
+                .append("b\n ")
+                .append(" ");
+
+        assertEquals("a \nb", sql.toString());
+        assertEquals("a \nb", sql.build().getSql());
+        assertEquals("", new Sql(" ").append("\n").toString());
+    }
+
+    @Test
+    void buildPositional() {
+        Sql sql = new Sql().select("c1")
+                .from("t1")
+                .where(sql("c1").equal(param("id", 1)))
+                .and(sql("c2").equal(param("name", "x")))
+                .or(sql("c3").equal(param("id", 1)));
+
+        BoundSql boundSql = sql.buildPositional();
+
+        assertSql("SELECT c1 FROM t1 WHERE c1 = ? AND c2 = ? OR c3 = ?", boundSql.getSql());
+        assertThat(boundSql.getParameterNames()).containsExactly("id", "name", "id");
+        assertThat(boundSql.getParameterValues()).containsExactly(1, "x", 1);
+    }
+
+    @Test
+    void compiledPositional() {
+        CompiledSql compiled = new Sql().select("c1")
+                .from("t1")
+                .where(sql("c1").equal(param("id", 1)))
+                .and(sql("c2").equal(param("name", "x")))
+                .compile()
+                .positional();
+
+        assertSql("SELECT c1 FROM t1 WHERE c1 = ? AND c2 = ?", compiled.getSql());
+        assertEquals('?', compiled.getSql().charAt(compiled.getPlaceholderPosition(1)));
+        assertThat(compiled.bind(2, "y").getParameterValues()).containsExactly(2, "y");
+        assertThat(compiled.positional()).isSameAs(compiled);
+    }
+
+    @Test
+    void deeplyNestedFragments() throws InterruptedException {
+        int depth = 150_000;
+        Sql condition = sql("c0").equal(param("v0", 0));
+        for (int i = 1; i <= depth; i++) {
+            condition = new Sql().append(condition).and("c" + i + " = " + i);
+        }
+        Sql sql = new Sql().select("*").from("t1").where(condition);
+        Sql bracketed = sql("c0 = 0");
+        for (int i = 1; i <= 20_000; i++) {
+            bracketed = brackets(new Sql().append(bracketed).or("c" + i + " = " + i).and("c" + i + " = " + i));
+        }
+        Sql nestedBrackets = new Sql().select("*").from("t1").where(bracketed);
+        String[] rendered = new String[5];
+        List<Map<String, Object>> parameters = new ArrayList<>();
+
+        Thread smallStack = new Thread(null, () -> {
+            rendered[0] = sql.toString();
+            rendered[1] = sql.build().getSql();
+            parameters.add(sql.getParameters());
+            sql.fingerprint();
+            sql.identityHash();
+            rendered[2] = sql.simplify().toString();
+            rendered[3] = nestedBrackets.toString();
+            rendered[4] = nestedBrackets.simplify().toString();
+        }, "small-stack", 128 * 1024);
+        smallStack.start();
+        smallStack.join();
+
+        assertThat(rendered[0]).startsWith("SELECT *").endsWith("AND c" + depth + " = " + depth);
+        assertEquals(rendered[0], rendered[1]);
+        assertEquals(rendered[0], rendered[2]);
+        assertThat(parameters.get(0)).containsExactly(entry("v0", 0));
+        assertThat(rendered[3]).endsWith("AND c20000 = 20000)");
+        assertThat(rendered[4].replace('\n', ' ')).startsWith("SELECT * FROM t1 WHERE c0 = 0 OR c1 = 1 OR c2 = 2")
+                .endsWith("OR c20000 = 20000");
+    }
+
+    @Test
+    void immutableSqlRejectsAppend() {
+        assertThrows(UnsupportedOperationException.class, () -> SELECT.append("c1"));
+        assertThrows(UnsupportedOperationException.class, () -> SELECT.param("p", 1));
+        assertEquals("SELECT", SELECT.toString());
+    }
+
+    @Test
+    void commaSeparatedManyStrings() {
+        String[] columns = new String[5_000];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = Integer.toString(i);
+        }
+        Sql list = commaSeparated(columns).comma().append("5000");
+        columns[0] = "changed";
+
+        assertThat(list.toString())
+                .startsWith("0, 1, 2")
+                .endsWith("4998, 4999, 5000");
+    }
+
+    @Test
+    void sharedFragmentCacheInvalidatedOnAppend() {
+        Sql tenantFilter = sql("tenant_id").equal(param("tenant_id", 42));
+        Sql first = new Sql().select("c1").from("t1").where(tenantFilter);
+        Sql second = new Sql().select("c2").from("t2").where(brackets(tenantFilter));
+
+        assertSql("SELECT c1 FROM t1 WHERE tenant_id = :tenant_id", first);
+        assertSql("SELECT c2 FROM t2 WHERE (tenant_id = :tenant_id)", second);
+        assertSql("SELECT c2 FROM t2 WHERE (tenant_id = :tenant_id)", second);
+
+        tenantFilter.and("deleted = 0");
+
+        assertSql("SELECT c1 FROM t1 WHERE tenant_id = :tenant_id AND deleted = 0", first);
+        assertSql("SELECT c2 FROM t2 WHERE (tenant_id = :tenant_id AND deleted = 0)", second);
+    }
+
+    @Test
+    void fragmentSharedByManyCachedParentsInvalidatesAll() {
+        Sql tenantFilter = sql("tenant_id").equal(param("tenant_id", 42));
+        List<Sql> roots = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            Sql group = brackets(tenantFilter);
+            Sql root = new Sql().select("c" + i).from("t").where(group).or(group);
+            root.toString();
+            roots.add(root);
+        }
+
+        tenantFilter.and("deleted = 0");
+
+        assertSql("SELECT c0 FROM t WHERE (tenant_id = :tenant_id AND deleted = 0) OR (tenant_id = :tenant_id AND deleted = 0)",
+                roots.get(0));
+        assertSql("SELECT c49999 FROM t WHERE (tenant_id = :tenant_id AND deleted = 0) OR (tenant_id = :tenant_id AND deleted = 0)",
+                roots.get(49_999));
+    }
+
+    @Test
+    void cachedRenderingInvalidatedFromDeepDescendant() {
+        Sql leafGroup = sql("c1 = 1");
+        Sql sql = new Sql().select("c1").from("t1").where(brackets(brackets(leafGroup)));
+        sql.toString();
+        sql.toString();
+
+        leafGroup.or(sql("c2").equal(param("c2", 2)));
+
+        assertSql("SELECT c1 FROM t1 WHERE ((c1 = 1 OR c2 = :c2))", sql);
+        assertThat(sql.build().getParameterValues()).containsExactly(2);
+    }
+
+    @Test
+    void cachedRenderingKeepsParameters() {
+        Sql fragment = sql("c1").equal(param("a", 1)).and(sql("c2").equal(param("b", 2)));
+        Sql sql = new Sql().select("c1").from("t1").where(fragment).or(fragment);
+
+        for (int i = 0; i < 3; i++) {
+            BoundSql named = sql.build();
+            assertSql("SELECT c1 FROM t1 WHERE c1 = :a AND c2 = :b OR c1 = :a AND c2 = :b", named.getSql());
+            assertThat(named.getParameterNames()).containsExactly("a", "b", "a", "b");
+
+            BoundSql positional = sql.buildPositional();
+            assertSql("SELECT c1 FROM t1 WHERE c1 = ? AND c2 = ? OR c1 = ? AND c2 = ?", positional.getSql());
+            assertThat(positional.getParameterValues()).containsExactly(1, 2, 1, 2);
+
+            CompiledSql compiled = sql.compile();
+            assertEquals(":b", compiled.getSql().substring(compiled.getPlaceholderPosition(3)));
+        }
+    }
+
+    @Test
+    void renderToAppendable() throws IOException {
+        Sql sql = new Sql().select("c1").from("t1").where(sql("c1").equal(quote("ä€😀"))).and("c2 = ").param("p", 1);
+        StringWriter writer = new StringWriter();
+
+        sql.renderTo(writer);
+
+        assertEquals(sql.toString(), writer.toString());
+    }
+
+    @Test
+    void renderToByteBuffer() {
+        Sql sql = new Sql().select("c1").from("t1").where(sql("c1").equal(quote("ä€😀"))).newLine();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(256);
+
+        int written = sql.renderTo(buffer);
+
+        buffer.flip();
+        assertEquals(written, buffer.remaining());
+        assertEquals(sql.toString(), StandardCharsets.UTF_8.decode(buffer).toString());
+        assertThrows(BufferOverflowException.class, () -> sql.renderTo(ByteBuffer.allocate(8)));
+    }
+
+    @Test
+    void renderToChannel() throws IOException {
+        String[] values = new String[5_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = "'värde " + i + "'";
+        }
+        Sql sql = new Sql().select("c1").from("t1").where("c1").in(commaSeparated(values));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        long written = sql.renderTo(Channels.newChannel(bytes));
+
+        assertEquals(bytes.size(), written);
+        assertEquals(sql.toString(), new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void fingerprintIgnoresParameterValues() {
+        Sql first = lookup("id", 1);
+        Sql second = lookup("id", 2);
+        Sql third = lookup("id", 1);
+
+        assertEquals(first.fingerprint(), second.fingerprint());
+        assertThat(first.identityHash()).isNotEqualTo(second.identityHash());
+        assertEquals(first.identityHash(), third.identityHash());
+        assertThat(first).isNotEqualTo(second).isEqualTo(third).hasSameHashCodeAs(second);
+        assertThat(lookup("key", 1).fingerprint()).isNotEqualTo(first.fingerprint());
+        assertThat(sql(":id").fingerprint()).isNotEqualTo(param("id", 1).fingerprint());
+    }
+
+    @Test
+    void fingerprintFollowsAppends() {
+        Sql nested = sql("c2 = 2");
+        Sql sql = new Sql().select("c1").from("t1").where(brackets(nested));
+        long before = sql.fingerprint();
+
+        sql.and("c3 = 3");
+        nested.or("c4 = 4");
+
+        Sql expected = new Sql().select("c1").from("t1").where(brackets(sql("c2 = 2").or("c4 = 4"))).and("c3 = 3");
+        assertThat(sql.fingerprint()).isNotEqualTo(before).isEqualTo(expected.fingerprint());
+        assertEquals(expected, sql);
+    }
+
+    @Test
+    void cachedFingerprintFollowsDescendantAppends() {
+        Sql nested = sql("c2").equal(param("c2", 2));
+        Sql group = brackets(nested);
+        Sql sql = new Sql().select("c1").from("t1").where(group).or(group);
+        sql.toString();
+        long before = sql.fingerprint();
+
+        nested.or("c4 = 4");
+
+        Sql expected = new Sql().select("c1").from("t1").where(brackets(sql("c2").equal(param("c2", 2)).or("c4 = 4")))
+                .or(brackets(sql("c2").equal(param("c2", 2)).or("c4 = 4")));
+        assertThat(sql.fingerprint()).isNotEqualTo(before).isEqualTo(expected.fingerprint());
+        assertSql("SELECT c1 FROM t1 WHERE (c2 = :c2 OR c4 = 4) OR (c2 = :c2 OR c4 = 4)", sql);
+    }
+
+    @Test
+    void insertInto() {
+        List<Sql> statements = SqlHelper.insertInto("t1", "c1", "c2")
+                .values(1, "a")
+                .values(2, "b")
+                .toStatements();
+
+        assertEquals(1, statements.size());
+        assertSql("INSERT INTO t1 (c1, c2) VALUES (:c1_0, :c2_0), (:c1_1, :c2_1)", statements.get(0));
+        assertThat(statements.get(0).getParameters())
+                .containsEntry("c1_0", 1).containsEntry("c2_0", "a")
+                .containsEntry("c1_1", 2).containsEntry("c2_1", "b");
+    }
+
+    @Test
+    void insertIntoChunksByParameterLimit() {
+        InsertSql insert = SqlHelper.insertInto("t1", "c1", "c2").maxParameters(5);
+        for (int i = 0; i < 5; i++) {
+            insert.values(i, "v" + i);
+        }
+
+        List<Sql> statements = insert.toStatements();
+
+        assertEquals(3, statements.size());
+        assertSql("INSERT INTO t1 (c1, c2) VALUES (:c1_0, :c2_0), (:c1_1, :c2_1)", statements.get(0));
+        assertSql("INSERT INTO t1 (c1, c2) VALUES (:c1_0, :c2_0)", statements.get(2));
+        assertEquals(statements.get(0).fingerprint(), statements.get(1).fingerprint());
+        assertThat(statements.get(1).getParameters()).containsEntry("c1_0", 2).containsEntry("c2_1", "v3");
+        assertThrows(IllegalArgumentException.class, () -> SqlHelper.insertInto("t1", "c1", "c2").maxParameters(1));
+    }
+
+    @Test
+    void insertIntoChunksByStatementLength() {
+        InsertSql insert = SqlHelper.insertInto("t1", "c1");
+        for (int i = 0; i < 100; i++) {
+            insert.values(i);
+        }
+
+        List<Sql> statements = insert.maxStatementLength(200).toStatements();
+
+        assertThat(statements).hasSizeGreaterThan(1);
+        assertThat(statements).allSatisfy(statement -> assertThat(statement.toString().length()).isLessThanOrEqualTo(200));
+        assertEquals(100, statements.stream().mapToInt(statement -> statement.getParameters().size()).sum());
+    }
+
+    @Test
+    void keysetFirstPage() {
+        Keyset keyset = new Keyset().asc("c1").asc("id");
+
+        Sql sql = new Sql().select("c1").from("t1").where(keyset).seek(keyset, 20);
+
+        assertSql("SELECT c1 FROM t1 ORDER BY c1 ASC, id ASC LIMIT :p_limit", sql);
+        assertThat(sql.getParameters()).containsOnly(entry(SqlConfig.DEFAULT.getLimitParameterName(), 20));
+    }
+
+    @Test
+    void keysetRowValuePredicate() {
+        Keyset keyset = new Keyset().desc("t1.created").desc("id").after(100, 7);
+
+        Sql sql = new Sql().select("c1").from("t1").where("c2 = 1").and(keyset).seek(keyset, 20);
+
+        assertSql("SELECT c1 FROM t1 WHERE c2 = 1 AND (t1.created, id) < (:last_t1_created, :last_id)"
+                + " ORDER BY t1.created DESC, id DESC LIMIT :p_limit", sql);
+        assertThat(sql.getParameters())
+                .containsEntry("last_t1_created", 100)
+                .containsEntry("last_id", 7);
+        assertSql("SELECT c1 FROM t1 WHERE id > :last_id",
+                new Sql().select("c1").from("t1").where(new Keyset().asc("id").after(7)));
+    }
+
+    @Test
+    void keysetExpandedPredicate() {
+        Keyset keyset = new Keyset().asc("c1").desc("c2").asc("id").after("a", 5, 7);
+
+        Sql sql = new Sql().select("c1").from("t1").where(keyset).seek(keyset, 10);
+
+        assertSql("SELECT c1 FROM t1 WHERE (c1 > :last_c1"
+                + " OR (c1 = :last_c1 AND c2 < :last_c2)"
+                + " OR (c1 = :last_c1 AND c2 = :last_c2 AND id > :last_id))"
+                + " ORDER BY c1 ASC, c2 DESC, id ASC LIMIT :p_limit", sql);
+        assertThat(sql.getParameters())
+                .containsEntry("last_c1", "a")
+                .containsEntry("last_c2", 5)
+                .containsEntry("last_id", 7);
+        assertThrows(IllegalArgumentException.class, () -> new Keyset().asc("c1").after(1, 2));
+        assertThrows(IllegalArgumentException.class, () -> new Keyset().asc("c1").after((Object) null));
+        assertThrows(IllegalStateException.class, () -> new Keyset().asc("a").after(1).desc("b"));
+    }
+
+    @Test
+    void keysetDefinitionReusedAcrossPages() {
+        Keyset definition = new Keyset().asc("id");
+        Keyset second = definition.after(7);
+        Keyset third = definition.after(14);
+
+        assertThat(definition.isFirstPage()).isTrue();
+        assertThat(definition.asc("c1")).isNotSameAs(definition);
+        assertSql("SELECT c1 FROM t1 ORDER BY id ASC LIMIT :p_limit",
+                new Sql().select("c1").from("t1").where(definition).seek(definition, 20));
+        assertThat(new Sql().where(second).getParameters()).containsEntry("last_id", 7);
+        assertThat(new Sql().where(third).getParameters()).containsEntry("last_id", 14);
+    }
+
+    @Test
+    void countQuery() {
+        Sql sql = new Sql()
+                .select("c1", "c2")
+                .from("t1")
+                .leftJoin("t2").on("t1.id = t2.id")
+                .where(sql("c1").equal(param("p1", 1)))
+                .and("c2 = 2")
+                .orderBy("c1").desc()
+                .offset(20)
+                .limit(10);
+
+        Sql count = sql.toCountQuery();
+
+        assertSql("SELECT COUNT(*) FROM t1 LEFT JOIN t2 ON t1.id = t2.id WHERE c1 = :p1 AND c2 = 2", count);
+        assertThat(count.getParameters()).containsOnly(entry("p1", 1));
+        assertSql("SELECT c1, c2 FROM t1 LEFT JOIN t2 ON t1.id = t2.id WHERE c1 = :p1 AND c2 = 2"
+                + " ORDER BY c1 DESC OFFSET :p_offset LIMIT :p_limit", sql);
+    }
+
+    @Test
+    void countQueryWrapsGroupingAndDistinct() {
+        Sql grouped = select("c1", "COUNT(*)").from("t1").where("c2 = 1").groupBy("c1").having("COUNT(*) > 1")
+                .orderBy("c1").limit(5);
+        Sql distinct = new Sql().selectDistinct("c1").from("t1").orderBy("c1");
+        Sql union = new Sql().withAs("w", select("c1").from("t1"))
+                .select("c1").from("w").union(select("c1").from("t2")).orderBy("c1");
+
+        assertSql("SELECT COUNT(*) FROM ( SELECT c1, COUNT(*) FROM t1 WHERE c2 = 1 GROUP BY c1 HAVING COUNT(*) > 1)"
+                + " AS count_query", grouped.toCountQuery());
+        assertSql("SELECT COUNT(*) FROM ( SELECT DISTINCT c1 FROM t1) AS count_query", distinct.toCountQuery());
+        assertSql("WITH w AS ( SELECT c1 FROM t1) SELECT COUNT(*) FROM ( SELECT c1 FROM w UNION  SELECT c1 FROM t2)"
+                + " AS count_query", union.toCountQuery());
+        assertThrows(IllegalStateException.class, () -> sql("SELECT c1 FROM t1").toCountQuery());
+    }
+
+    @Test
+    void config() {
+        SqlConfig config = SqlConfig.DEFAULT.withOffsetParameterName("skip").withLimitParameterName("take")
+                .withInListMaxSize(2);
+
+        Sql sql = new Sql(null, config).select("c1").from("t1").where(SqlHelper.in("c0", Arrays.asList(1, 2)))
+                .and(new Sql(null, config).in("c2", Arrays.asList(1, 2, 3))).offset(20).limit(10);
+
+        assertSql("SELECT c1 FROM t1 WHERE c0 IN (:c0_0, :c0_1) AND (c2 IN (:c2_0, :c2_1) OR c2 IN (:c2_2))"
+                + " OFFSET :skip LIMIT :take", sql);
+        assertThat(sql.getParameters()).containsEntry("skip", 20).containsEntry("take", 10);
+        assertSql("SELECT COUNT(*) FROM t1 WHERE c0 IN (:c0_0, :c0_1) AND (c2 IN (:c2_0, :c2_1) OR c2 IN (:c2_2))",
+                sql.toCountQuery());
+        assertEquals(config, sql.toCountQuery().getConfig());
+        assertEquals(SqlConfig.DEFAULT, new Sql().getConfig());
+        assertEquals("p_offset", SqlConfig.DEFAULT.getOffsetParameterName());
+        assertThrows(IllegalArgumentException.class, () -> SqlConfig.DEFAULT.withLimitParameterName("p limit"));
+        assertThrows(IllegalArgumentException.class, () -> SqlConfig.DEFAULT.withInListMaxSize(0));
+    }
+
+    @Test
+    void sharedConstantsAreImmutable() {
+        assertThrows(UnsupportedOperationException.class, () -> WHERE.append("c1 = 1"));
+        assertThrows(UnsupportedOperationException.class, () -> SELECT.param("p1", 1));
+        assertThat(SELECT.getParameters()).isEmpty();
+        assertThrows(UnsupportedOperationException.class, () -> SELECT.getParameters().put("p1", 1));
+        assertSql("SELECT c1 FROM t1 WHERE c1 = 1", select("c1").from("t1").where("c1 = 1"));
+    }
+
+    @Test
+    void parameterSnapshots() {
+        Sql nested = sql("c2").equal(param("p2", 2));
+        Sql sql = new Sql().select("c1").from("t1").where(sql("c1").equal(param("p1", 1))).and(nested);
+
+        Map<String, Object> first = sql.getParameters();
+        Map<String, Object> second = sql.getParameters();
+        nested.and("c3").equal(param("p3", 3));
+        Map<String, Object> third = sql.getParameters();
+
+        assertThat(first).containsExactly(entry("p1", 1), entry("p2", 2)).isEqualTo(second);
+        assertThrows(UnsupportedOperationException.class, () -> second.put("p4", 4));
+        assertThat(third).containsExactly(entry("p1", 1), entry("p2", 2), entry("p3", 3));
+        assertThat(first).hasSize(2);
+    }
+
+    @Test
+    void sharedSqlReadConcurrently() {
+        Sql shared = lookup("id", 7);
+        Map<String, Object> expected = Collections.singletonMap("id", 7);
+        String expectedSql = lookup("id", 7).build().getSql();
+
+        assertThat(IntStream.range(0, 10_000).parallel()
+                .allMatch(i -> shared.getParameters().equals(expected)
+                        && shared.build().getSql().equals(expectedSql)))
+                .isTrue();
+    }
+
+    @Test
+    void conflictingParameterValues() {
+        Sql same = new Sql().select("c1").from("t1").where(sql("c1").equal(param("p1", 1))).or("c2").equal(param("p1", 1));
+        Sql conflicting = new Sql().select("c1").from("t1").where(sql("c1").equal(param("p1", 1))).or("c2").equal(param("p1", 2));
+
+        assertThat(same.getParameters()).containsOnly(entry("p1", 1));
+        assertThrows(IllegalStateException.class, conflicting::getParameters);
+    }
+
+    @Test
+    void persistentSqlSharesBase() {
+        Sql base = persistent().select("c1", "c2").from("t1").join("t2").on("t1.id = t2.id");
+
+        Sql first = base.where(sql("c1").equal(param("p1", 1))).and("c2 = 2");
+        Sql second = base.where("c3 = 3").orderBy("c1").limit(10);
+
+        assertSql("SELECT c1, c2 FROM t1 JOIN t2 ON t1.id = t2.id", base);
+        assertSql("SELECT c1, c2 FROM t1 JOIN t2 ON t1.id = t2.id WHERE c1 = :p1 AND c2 = 2", first);
+        assertSql("SELECT c1, c2 FROM t1 JOIN t2 ON t1.id = t2.id WHERE c3 = 3 ORDER BY c1 LIMIT :p_limit", second);
+        assertThat(first.getParameters()).containsOnly(entry("p1", 1));
+        assertThat(base.getParameters()).isEmpty();
+        assertSql("SELECT COUNT(*) FROM t1 JOIN t2 ON t1.id = t2.id WHERE c3 = 3", second.toCountQuery());
+        assertEquals(new Sql().select("c1", "c2").from("t1").join("t2").on("t1.id = t2.id").where("c3 = 3")
+                .orderBy("c1").limit(10), second);
+    }
+
+    @Test
+    void persistentSqlSnapshotsMutableFragments() {
+        Sql mutableBase = new Sql().select("c1").from("t1");
+        Sql fragment = sql("c2 = 2");
+        Sql derived = mutableBase.toPersistent().where(fragment);
+        assertSql("SELECT c1 FROM t1 WHERE c2 = 2", derived);
+        assertSql("SELECT c1 FROM t1 WHERE c2 = 2", derived);
+
+        mutableBase.orderBy("c1");
+        fragment.or("c3 = 3");
+
+        assertSql("SELECT c1 FROM t1 WHERE c2 = 2", derived);
+        assertEquals("SELECT c1 FROM t1 WHERE c2 = 2", derived.format(SqlFormat.COMPACT));
+        assertSql("SELECT c1 FROM t1 ORDER BY c1 WHERE c2 = 2 OR c3 = 3", mutableBase.toPersistent().where(fragment));
+        assertThrows(UnsupportedOperationException.class, () -> derived.child(1).append("c4"));
+    }
+
+    @Test
+    void persistentSqlExtendedConcurrently() {
+        Sql mutableBase = new Sql().select("c1").from("t1");
+        Sql base = persistent(mutableBase);
+
+        assertThat(IntStream.range(0, 10_000).parallel()
+                .allMatch(i -> base.where(sql("c1").equal(param("id", i))).getParameters().get("id").equals(i)
+                        && base.where("c2 = " + i).toString().endsWith("c2 = " + i)))
+                .isTrue();
+        assertSql("SELECT c1 FROM t1", base);
+        assertSql("SELECT c1 FROM t1", mutableBase);
+    }
+
+    @Test
+    void visitTypedTree() {
+        Sql sql = new Sql().select("c1", "c2")
+                .from("t1")
+                .leftJoin("t2").on("t1.id = t2.id")
+                .where(sql("c1").equal(param("p1", 1)))
+                .or(sql("c2").in("SELECT c2 FROM t3"))
+                .orderBy(desc("c1"))
+                .limit(10);
+        List<String> visited = new ArrayList<>();
+
+        sql.accept(new SqlVisitor() {
+            @Override
+            public void visitClause(SqlClause clause, String keyword) {
+                visited.add(clause.name());
+            }
+
+            @Override
+            public void visitOperator(SqlOperator operator, String keyword) {
+                visited.add(operator.name());
+            }
+
+            @Override
+            public void visitText(String text) {
+                visited.add("'" + text + "'");
+            }
+
+            @Override
+            public void visitParameter(String name, Object value) {
+                visited.add(":" + name + "=" + value);
+            }
+        });
+
+        assertThat(visited).containsExactly(
+                "SELECT", "'c1'", "COMMA", "'c2'",
+                "FROM", "'t1'",
+                "LEFT_JOIN", "'t2'", "ON", "'t1.id = t2.id'",
+                "WHERE", "'c1'", "EQUAL", ":p1=1",
+                "OR", "'c2'", "IN", "LEFT_BRACKET", "'SELECT c2 FROM t3'", "RIGHT_BRACKET",
+                "ORDER_BY", "'c1'", "DESC",
+                "LIMIT", ":p_limit=10");
+        assertThat(SqlClause.LEFT_JOIN.isJoin()).isTrue();
+        assertThat(SqlOperator.EQUAL.isComparison()).isTrue();
+    }
+
+    @Test
+    void visitorSeesNesting() {
+        Sql sql = new Sql().select("c1").from("t1").where(SqlHelper.exists(select("c2").from("t2").where("c3 = 1")));
+        List<String> visited = new ArrayList<>();
+
+        sql.accept(new SqlVisitor() {
+            private int depth;
+
+            @Override
+            public void enterNode(Sql node) {
+                depth++;
+            }
+
+            @Override
+            public void leaveNode(Sql node) {
+                depth--;
+            }
+
+            @Override
+            public void visitText(String text) {
+                visited.add(depth + ":" + text);
+            }
+        });
+
+        assertThat(visited).containsExactly("1:c1", "1:t1", "4:c2", "4:t2", "4:c3 = 1");
+    }
+
+    @Test
+    void visitorExtractsTables() {
+        Sql sql = new Sql().select("c1").from("t1").join("t2").on("t1.id = t2.id")
+                .where(SqlHelper.exists(select("c3").from("t3")));
+        List<String> tables = new ArrayList<>();
+
+        sql.accept(new SqlVisitor() {
+            private boolean tableExpected;
+
+            @Override
+            public void visitClause(SqlClause clause, String keyword) {
+                tableExpected = clause == SqlClause.FROM || clause.isJoin();
+            }
+
+            @Override
+            public void visitOperator(SqlOperator operator, String keyword) {
+                tableExpected = false;
+            }
+
+            @Override
+            public void visitText(String text) {
+                if (tableExpected) {
+                    tables.add(text);
+                    tableExpected = false;
+                }
+            }
+        });
+
+        assertThat(tables).containsExactly("t1", "t2", "t3");
+    }
+
+    @Test
+    void simplifyDropsTautologiesAndDuplicates() {
+        Sql sql = new Sql().select("c1").from("t1")
+                .where(sql("1 = 1"))
+                .and(sql("tenant_id").equal(param("tenant", 7)))
+                .and("c2 = 2")
+                .and(sql("tenant_id").equal(param("tenant", 7)))
+                .orderBy("c1");
+
+        Sql simplified = sql.simplify();
+
+        assertSql("SELECT c1 FROM t1 WHERE tenant_id = :tenant AND c2 = 2 ORDER BY c1", simplified);
+        assertThat(simplified.getParameters()).containsOnly(entry("tenant", 7));
+        assertSql("SELECT c1 FROM t1 WHERE 1 = 1 AND tenant_id = :tenant AND c2 = 2 AND tenant_id = :tenant"
+                + " ORDER BY c1", sql);
+        assertSql("SELECT c1 FROM t1 ORDER BY c1", select("c1").from("t1").where("1=1").orderBy("c1").simplify());
+        assertSql("SELECT c1 FROM t1", select("c1").from("t1").where("c1 = 1").or("TRUE").simplify());
+        assertSql("SELECT c1 FROM t1 WHERE 1 = 0", select("c1").from("t1").where("c1 = 1").and("1 = 0").simplify());
+        assertSql("SELECT c1 FROM t1 WHERE c1 = 1", select("c1").from("t1").where("c1 = 1").or("1 = 0").or("c1 = 1")
+                .simplify());
+    }
+
+    @Test
+    void simplifyFlattensGroups() {
+        Sql nested = select("c1").from("t1")
+                .where(brackets(concatenate(AND, sql("a = 1"), brackets(sql("b = 2").and("c = 3")))))
+                .and(brackets(concatenate(AND, new Sql[0])))
+                .and(brackets(sql("d = 4").or("d = 4").or(brackets(sql("e = 5").or("f = 6")))))
+                .groupBy("c1")
+                .having(brackets(sql("COUNT(*) > 1")));
+
+        assertSql("SELECT c1 FROM t1 WHERE a = 1 AND b = 2 AND c = 3 AND (d = 4 OR e = 5 OR f = 6)"
+                + " GROUP BY c1 HAVING COUNT(*) > 1", nested.simplify());
+        assertSql("SELECT c1 FROM t1 WHERE a = 1 OR b = 2 AND c = 3",
+                select("c1").from("t1").where("a = 1").or(brackets(sql("b = 2").and("c = 3"))).or("a = 1").simplify());
+    }
+
+    @Test
+    void simplifyKeepsOpaqueText() {
+        Sql opaque = select("c1").from("t1").where("a = 1 OR b = 2").and("c = 3").and("c = 3");
+        Sql between = select("c1").from("t1").where("c1 BETWEEN 1 AND 5").and("1 = 1");
+        Sql bracketed = select("c1").from("t1").where(brackets("a = 1 OR b = 2")).and("1 = 1").and("c = 3");
+        Sql subquery = select("c1").from("t1").where(SqlHelper.exists(select("c2").from("t2").where("1 = 1")));
+
+        assertSql(opaque.toString().replace('\n', ' '), opaque.simplify());
+        assertSql(between.toString().replace('\n', ' '), between.simplify());
+        assertSql("SELECT c1 FROM t1 WHERE (a = 1 OR b = 2) AND c = 3", bracketed.simplify());
+        assertSql(subquery.toString().replace('\n', ' '), subquery.simplify());
+        Sql unbracketed = select("c1").from("t1").where(sql("c1 = ANY ").append(select("c2").from("t2").where("a = 1")
+                .and("b = 2").or("b = 2"))).and("1 = 1");
+        assertSql(unbracketed.toString().replace('\n', ' '), unbracketed.simplify());
+        Sql nestedWords = select("c1").from("t1").where(sql("c1").in(brackets("SELECT c2 FROM t2 WHERE a = 1 OR b = 2")))
+                .and("1 = 1");
+        assertSql("SELECT c1 FROM t1 WHERE c1 IN ((SELECT c2 FROM t2 WHERE a = 1 OR b = 2))", nestedWords.simplify());
+    }
+
+    @Test
+    void compactFormat() throws IOException {
+        SqlConfig config = SqlConfig.DEFAULT.withFormat(SqlFormat.COMPACT);
+        Sql sql = new Sql(null, config).select("c1", "c2").from("t1")
+                .where(sql("c1").equal(param("p1", 1)))
+                .and("c2").in(select("c2").from("t2").where("c3  =  3"))
+                .union(select("c1", "c2").from("t3"))
+                .orderBy("c1");
+        String compact = "SELECT c1, c2 FROM t1 WHERE c1 = :p1 AND c2 IN (SELECT c2 FROM t2 WHERE c3  =  3)"
+                + " UNION SELECT c1, c2 FROM t3 ORDER BY c1";
+
+        assertEquals(compact, sql.toString());
+        assertEquals(compact, sql.format(SqlFormat.COMPACT));
+        assertThat(sql.format(SqlFormat.PRETTY)).contains("\n").isNotEqualTo(compact);
+        assertEquals(compact.replace(":p1", "?"), sql.buildPositional().getSql());
+        assertThat(sql.build().getParameters()).containsEntry("p1", 1);
+        StringBuilder appendable = new StringBuilder();
+        sql.renderTo(appendable);
+        assertEquals(compact, appendable.toString());
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        assertEquals(compact.length(), sql.renderTo(buffer));
+        assertEquals(compact, new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8));
+        assertEquals(compact, sql.toString());
+        assertEquals(config, config.withFormat(SqlFormat.COMPACT));
+        assertEquals(SqlFormat.PRETTY, SqlConfig.DEFAULT.getFormat());
+    }
+
+    @Test
+    void compactFormatKeepsLiteralWhitespace() {
+        SqlConfig config = SqlConfig.DEFAULT.withFormat(SqlFormat.COMPACT);
+        Sql sql = new Sql(null, config).select("c1").from("t1")
+                .where(sql("name").like("  x "))
+                .and("c2").equal(quote(sql("\n  a")))
+                .and("c3 = 1 ");
+
+        assertEquals("SELECT c1 FROM t1 WHERE name LIKE '  x ' AND c2 = '\n  a' AND c3 = 1", sql.toString());
+        assertSql("SELECT c1 FROM t1 WHERE name LIKE '  x ' AND c2 = '   a' AND c3 = 1",
+                sql.format(SqlFormat.PRETTY));
+    }
+
+    @Test
+    void inStrategyAboveThreshold() {
+        SqlConfig arrayConfig = SqlConfig.DEFAULT.withInStrategy(SqlInStrategy.ARRAY, 2);
+        SqlConfig valuesConfig = SqlConfig.DEFAULT.withInStrategy(SqlInStrategy.VALUES, 2);
+
+        Sql small = new Sql(null, arrayConfig).select("c1").from("t1").where("c2 = 1").and().in("t1.id", Arrays.asList(1, 2));
+        Sql array = new Sql(null, arrayConfig).select("c1").from("t1").where("c2 = 1").and().in("t1.id", Arrays.asList(1, 2, 3));
+        Sql values = new Sql(null, valuesConfig).select("c1").from("t1").where("c2 = 1").and().in("id", Arrays.asList(1, 2, 3));
+
+        assertSql("SELECT c1 FROM t1 WHERE c2 = 1 AND t1.id IN (:t1_id_0, :t1_id_1)", small);
+        assertSql("SELECT c1 FROM t1 WHERE c2 = 1 AND t1.id = ANY(:t1_id_array)", array);
+        assertThat(array.getParameters().get("t1_id_array")).isEqualTo(new Integer[]{1, 2, 3});
+        assertSql("SELECT c1 FROM t1 WHERE c2 = 1 AND id IN ( SELECT v FROM ( VALUES (:id_0), (:id_1), (:id_2), (:id_3))"
+                + " AS in_values(v))", values);
+        assertThat(values.getParameters()).containsEntry("id_2", 3).containsEntry("id_3", 3);
+        assertSql("SELECT c1 FROM t1 WHERE c2 = 1 AND id = ANY(:id_array)", new Sql(null, arrayConfig).select("c1").from("t1")
+                .where("c2 = 1").and().in("id", Arrays.asList(1, "2", null)));
+        Sql nested = new Sql(null, valuesConfig).select("c1").from("t1")
+                .where(SqlHelper.in(valuesConfig, "id", Arrays.asList(1, 2, 3)))
+                .or(SqlHelper.in("c2", Arrays.asList(1, 2, 3)));
+        assertSql("SELECT c1 FROM t1 WHERE id IN ( SELECT v FROM ( VALUES (:id_0), (:id_1), (:id_2), (:id_3))"
+                + " AS in_values(v)) OR c2 IN (:c2_0, :c2_1, :c2_2, :c2_3)", nested);
+        assertSql("SELECT c1 FROM t1 WHERE id = ANY(:ids_array)", new Sql().select("c1").from("t1")
+                .where(SqlHelper.in(arrayConfig, "id", Arrays.asList(1, 2, 3), "ids")));
+        assertEquals(SqlInStrategy.LIST, SqlConfig.DEFAULT.getInStrategy());
+        assertThrows(IllegalArgumentException.class, () -> SqlConfig.DEFAULT.withInStrategy(SqlInStrategy.ARRAY, -1));
+    }
+
+    @Test
+    void tables() {
+        Sql sql = new Sql().select("c1").from("T1 a, t2 b").join("t3 on t3.id = a.id")
+                .leftJoin(sql("t4").as("d")).on("d.id = a.id")
+                .where(SqlHelper.exists(select("c5").from(commaSeparated(sql("t5"), sql("t6")))))
+                .and("c1").in(select("c7").from(brackets(select("c8").from("t8"))).as("x"));
+
+        assertThat(sql.getTables()).containsExactly("t1", "t2", "t3", "t4", "t5", "t6", "t8");
+        assertThat(SqlHelper.insertInto("t9", "c1").values(1).toStatements().get(0).getTables()).containsExactly("t9");
+        assertThat(sql("SELECT c1 FROM t1").getTables()).isEmpty();
+        assertThat(new Sql().select("c1").from(brackets(select("c2").from("t2")).as("x")).comma().append("t3 y")
+                .join(brackets(select("c4").from("t4").where("c4 = 1"))).on("y.id = c4").getTables())
+                .containsExactly("t2", "t3", "t4");
+    }
+
+    private static Sql lookup(String name, Object value) {
+        return new Sql().select("c1").from("t1").where(sql("c1").equal(param(name, value)));
+    }
+
     private void assertSql(String expected, Sql actual) {
-        String actualString = actual.toString().replace('\n', ' ');
+        assertSql(expected, actual.toString());
+    }
+
+    private void assertSql(String expected, String actual) {
+        String actualString = actual.replace('\n', ' ');
         assertEquals(expected, actualString);
     }
 }